@@ -0,0 +1,58 @@
+package com.rcelik.springguru.reactivemongodb.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+
+/**
+ * Sample documents shared by benchmarks. Values are fixed so that runs are
+ * comparable.
+ */
+final class BenchmarkData {
+    private static final String[] STYLES = { "IPA", "LAGER", "PILSNER", "STOUT", "PORTER", "ALE" };
+
+    private BenchmarkData() {
+    }
+
+    private static String objectId(int index) {
+        return new ObjectId(String.format("%024x", index)).toHexString();
+    }
+
+    static Beer beer(int index) {
+        LocalDateTime now = LocalDateTime.of(2023, 6, 1, 12, 0);
+        return Beer.builder()
+                .id(objectId(index))
+                .beerName("Beer number " + index)
+                .beerStyle(STYLES[index % STYLES.length])
+                .upc(String.valueOf(10_000_000 + index))
+                .quantitiyOnHand(index % 500)
+                .price(new BigDecimal("9.99").add(BigDecimal.valueOf(index % 100, 2)))
+                .createdDate(now)
+                .updatedDate(now)
+                .build();
+    }
+
+    static List<Beer> beers(int count) {
+        List<Beer> beers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            beers.add(beer(i));
+        }
+        return beers;
+    }
+
+    static Customer customer(int index) {
+        LocalDateTime now = LocalDateTime.of(2023, 6, 1, 12, 0);
+        return Customer.builder()
+                .id(objectId(index))
+                .name("Customer " + index)
+                .createdDate(now)
+                .lastModifiedDate(now)
+                .build();
+    }
+}
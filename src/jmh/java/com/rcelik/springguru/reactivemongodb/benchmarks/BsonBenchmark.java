@@ -0,0 +1,89 @@
+package com.rcelik.springguru.reactivemongodb.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.rcelik.springguru.reactivemongodb.codecs.BeerCodec;
+import com.rcelik.springguru.reactivemongodb.config.DecimalConverters;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+
+/**
+ * Cost of turning a Beer into BSON bytes and back the way repositories do:
+ * MappingMongoConverter to a Document, then the driver codec to bytes. The
+ * codec benchmarks do the same with BeerCodec, which is used when
+ * app.mongo.entity-codecs is enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BsonBenchmark {
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final BeerCodec beerCodec = new BeerCodec();
+
+    private MappingMongoConverter converter;
+    private Beer beer;
+    private byte[] beerBson;
+
+    @Setup
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(DecimalConverters.converters());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        beer = BenchmarkData.beer(1);
+        beerBson = encodeBeer();
+    }
+
+    @Benchmark
+    public byte[] encodeBeer() {
+        Document document = new Document();
+        converter.write(beer, document);
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public Beer decodeBeer() {
+        Document document = documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(beerBson)),
+                DecoderContext.builder().build());
+        return converter.read(Beer.class, document);
+    }
+
+    @Benchmark
+    public byte[] encodeBeerWithCodec() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        beerCodec.encode(new BsonBinaryWriter(buffer), beer, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public Beer decodeBeerWithCodec() {
+        return beerCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(beerBson)), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,76 @@
+package com.rcelik.springguru.reactivemongodb.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.rcelik.springguru.reactivemongodb.mappers.BeerMapper;
+import com.rcelik.springguru.reactivemongodb.mappers.BeerMapperImpl;
+import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+
+/**
+ * Cost of Jackson encoding and decoding of beers, for a single item and for
+ * listings of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+    private static final TypeReference<List<BeerDTO>> BEER_LIST_TYPE = new TypeReference<>() {
+    };
+
+    @Param({ "1000" })
+    private int listSize;
+
+    // configured like spring boot does, dates are written as ISO text
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private BeerDTO beerDTO;
+    private List<BeerDTO> beerDTOs;
+    private byte[] beerJson;
+    private byte[] beerListJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        BeerMapper beerMapper = new BeerMapperImpl();
+        beerDTO = beerMapper.beerToBeerDTO(BenchmarkData.beer(1));
+        beerDTOs = BenchmarkData.beers(listSize).stream().map(beerMapper::beerToBeerDTO).toList();
+        beerJson = objectMapper.writeValueAsBytes(beerDTO);
+        beerListJson = objectMapper.writeValueAsBytes(beerDTOs);
+    }
+
+    @Benchmark
+    public byte[] encodeBeer() throws Exception {
+        return objectMapper.writeValueAsBytes(beerDTO);
+    }
+
+    @Benchmark
+    public BeerDTO decodeBeer() throws Exception {
+        return objectMapper.readValue(beerJson, BeerDTO.class);
+    }
+
+    @Benchmark
+    public byte[] encodeBeerList() throws Exception {
+        return objectMapper.writeValueAsBytes(beerDTOs);
+    }
+
+    @Benchmark
+    public List<BeerDTO> decodeBeerList() throws Exception {
+        return objectMapper.readValue(beerListJson, BEER_LIST_TYPE);
+    }
+}
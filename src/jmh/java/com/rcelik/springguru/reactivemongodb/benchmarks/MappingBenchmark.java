@@ -0,0 +1,65 @@
+package com.rcelik.springguru.reactivemongodb.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+import com.rcelik.springguru.reactivemongodb.mappers.BeerMapper;
+import com.rcelik.springguru.reactivemongodb.mappers.BeerMapperImpl;
+import com.rcelik.springguru.reactivemongodb.mappers.CustomerMapper;
+import com.rcelik.springguru.reactivemongodb.mappers.CustomerMapperImpl;
+import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.CustomerDTO;
+
+/**
+ * Cost of MapStruct mapping between entities and DTOs, done for every item of
+ * every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+    private final BeerMapper beerMapper = new BeerMapperImpl();
+    private final CustomerMapper customerMapper = new CustomerMapperImpl();
+
+    private Beer beer;
+    private BeerDTO beerDTO;
+    private Customer customer;
+    private CustomerDTO customerDTO;
+
+    @Setup
+    public void setUp() {
+        beer = BenchmarkData.beer(1);
+        beerDTO = beerMapper.beerToBeerDTO(beer);
+        customer = BenchmarkData.customer(1);
+        customerDTO = customerMapper.customerToCustomerDto(customer);
+    }
+
+    @Benchmark
+    public BeerDTO beerToBeerDTO() {
+        return beerMapper.beerToBeerDTO(beer);
+    }
+
+    @Benchmark
+    public Beer beerDTOToBeer() {
+        return beerMapper.beerDTOToBeer(beerDTO);
+    }
+
+    @Benchmark
+    public CustomerDTO customerToCustomerDto() {
+        return customerMapper.customerToCustomerDto(customer);
+    }
+
+    @Benchmark
+    public Customer customerDtoToCustomer() {
+        return customerMapper.customerDtoToCustomer(customerDTO);
+    }
+}
@@ -0,0 +1,97 @@
+package com.rcelik.springguru.reactivemongodb.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.rcelik.springguru.reactivemongodb.mappers.BeerMapper;
+import com.rcelik.springguru.reactivemongodb.mappers.BeerMapperImpl;
+import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+
+/**
+ * Cost of writing a beer listing in each response format, optionally gzip
+ * compressed as the server does for large responses. Size of the written
+ * listing per beer is reported as bytesPerItem counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    @Param({ "json", "cbor", "smile" })
+    private String format;
+
+    @Param({ "identity", "gzip" })
+    private String encoding;
+
+    @Param({ "1000" })
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<BeerDTO> beerDTOs;
+
+    /**
+     * counters are reported next to the timings, the value is set to the last
+     * written size instead of summed
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WrittenSize {
+        public long bytesPerItem;
+    }
+
+    @Setup
+    public void setUp() {
+        // configured like spring boot does, dates are written as ISO text in every format
+        objectMapper = configure(switch (format) {
+            case "cbor" -> CBORMapper.builder();
+            case "smile" -> SmileMapper.builder();
+            default -> JsonMapper.builder();
+        });
+
+        BeerMapper beerMapper = new BeerMapperImpl();
+        beerDTOs = BenchmarkData.beers(listSize).stream().map(beerMapper::beerToBeerDTO).toList();
+    }
+
+    private static ObjectMapper configure(MapperBuilder<?, ?> builder) {
+        return builder.findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeBeerList(WrittenSize writtenSize) throws IOException {
+        byte[] written = objectMapper.writeValueAsBytes(beerDTOs);
+        if ("gzip".equals(encoding)) {
+            written = gzip(written);
+        }
+        writtenSize.bytesPerItem = written.length / beerDTOs.size();
+        return written;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
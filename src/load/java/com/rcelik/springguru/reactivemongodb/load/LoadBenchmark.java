@@ -0,0 +1,343 @@
+package com.rcelik.springguru.reactivemongodb.load;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.bson.types.ObjectId;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rcelik.springguru.reactivemongodb.ReactiveMongoDbApplication;
+import com.rcelik.springguru.reactivemongodb.config.WebCodecConfig;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.CustomerDTO;
+import com.rcelik.springguru.reactivemongodb.web.fn.BeerRouterConfig;
+import com.rcelik.springguru.reactivemongodb.web.fn.CustomerRouteConfig;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * End to end load benchmark of the functional endpoints.
+ * Starts a local mongod (or uses load.mongoUri), starts the application on a
+ * random port, seeds beers and customers, then drives a mixed read/write
+ * workload with a fixed number of concurrent requests. Throughput,
+ * p50/p99/p999 latencies and response bytes per item of reads are written as
+ * JSON, with process cpu time per operation.
+ *
+ * <p>
+ * Options are system properties:
+ * <ul>
+ * <li>load.mongod: mongod binary, default mongod from PATH</li>
+ * <li>load.mongoUri: use that mongo instead of spawning one</li>
+ * <li>load.beers, load.customers: number of seeded documents</li>
+ * <li>load.concurrency: number of in-flight requests</li>
+ * <li>load.warmupSeconds, load.durationSeconds: length of the phases</li>
+ * <li>load.readRatio: share of read operations, between 0 and 1</li>
+ * <li>load.seed: seed of the operation mix</li>
+ * <li>load.format: response format of reads, json, cbor or smile</li>
+ * <li>load.encoding: Accept-Encoding of reads, identity, gzip or br</li>
+ * <li>load.output: result file</li>
+ * </ul>
+ */
+public class LoadBenchmark {
+
+    enum Operation {
+        GET_BEER, LIST_BEERS_PAGE, GET_CUSTOMER, LIST_CUSTOMERS_PAGE, CREATE_BEER, PATCH_BEER, CREATE_CUSTOMER
+    }
+
+    private static final String[] STYLES = { "IPA", "LAGER", "PILSNER", "STOUT", "PORTER", "ALE", "WHEAT", "SOUR" };
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int PAGE_SIZE = 50;
+
+    private final int beerCount = Integer.getInteger("load.beers", 10_000);
+    private final int customerCount = Integer.getInteger("load.customers", 1_000);
+    private final int concurrency = Integer.getInteger("load.concurrency", 32);
+    private final Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmupSeconds", 10));
+    private final Duration duration = Duration.ofSeconds(Integer.getInteger("load.durationSeconds", 30));
+    private final double readRatio = Double.parseDouble(System.getProperty("load.readRatio", "0.9"));
+    private final long seed = Long.getLong("load.seed", 42L);
+    private final String format = System.getProperty("load.format", "json");
+    private final String encoding = System.getProperty("load.encoding", "identity");
+    private final String output = System.getProperty("load.output", "build/results/load/results.json");
+
+    private final Random operationRandom = new Random(seed);
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    private List<String> beerIds;
+    private List<String> customerIds;
+    private WebClient webClient;
+    private MediaType readMediaType;
+    private long cpuNanos;
+
+    public static void main(String[] args) throws Exception {
+        new LoadBenchmark().run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        String mongoUri = System.getProperty("load.mongoUri");
+        LocalMongod mongod = null;
+        if (mongoUri == null) {
+            mongod = LocalMongod.start(System.getProperty("load.mongod", "mongod"));
+            mongoUri = mongod.connectionString();
+        }
+
+        try (ConfigurableApplicationContext context = startApplication(mongoUri)) {
+            seed(context.getBean(ReactiveMongoTemplate.class));
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            // client does not decompress, so bytes of reads are counted as they are sent
+            webClient = WebClient.builder().baseUrl("http://127.0.0.1:" + port).build();
+            readMediaType = switch (format) {
+                case "cbor" -> MediaType.APPLICATION_CBOR;
+                case "smile" -> WebCodecConfig.APPLICATION_SMILE;
+                default -> MediaType.APPLICATION_JSON;
+            };
+
+            runPhase(warmup, false);
+            for (Operation operation : Operation.values()) {
+                stats.put(operation, new OperationStats());
+            }
+            // server and client run in this process, cpu time covers both
+            long cpuStart = processCpuNanos();
+            runPhase(duration, true);
+            cpuNanos = processCpuNanos() - cpuStart;
+
+            writeResults();
+        } finally {
+            if (mongod != null) {
+                mongod.close();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(String mongoUri) {
+        return new SpringApplicationBuilder(ReactiveMongoDbApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "app.bootstrap.enabled=false",
+                        "app.mongo.uri=" + mongoUri,
+                        "app.mongo.username=",
+                        "app.mongo.database=load_benchmark")
+                .run();
+    }
+
+    private void seed(ReactiveMongoTemplate mongoTemplate) {
+        long start = System.nanoTime();
+        // documents are removed instead of dropping collections so that indexes stay
+        mongoTemplate.remove(new Query(), Beer.class)
+                .then(mongoTemplate.remove(new Query(), Customer.class))
+                .block();
+
+        Random random = new Random(seed);
+        List<Beer> beers = new ArrayList<>(beerCount);
+        for (int i = 0; i < beerCount; i++) {
+            beers.add(Beer.builder()
+                    .id(ObjectId.get().toHexString())
+                    .beerName("Load beer " + i)
+                    .beerStyle(STYLES[random.nextInt(STYLES.length)])
+                    .upc(String.valueOf(10_000_000 + i))
+                    .quantitiyOnHand(random.nextInt(1000))
+                    .price(BigDecimal.valueOf(300 + random.nextInt(3000), 2))
+                    .build());
+        }
+        List<Customer> customers = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            customers.add(Customer.builder().id(ObjectId.get().toHexString()).name("Customer " + i).build());
+        }
+
+        Flux.fromIterable(beers).buffer(SEED_BATCH_SIZE)
+                .flatMap(batch -> mongoTemplate.insertAll(batch).then(), 4)
+                .thenMany(Flux.fromIterable(customers).buffer(SEED_BATCH_SIZE))
+                .flatMap(batch -> mongoTemplate.insertAll(batch).then(), 4)
+                .blockLast();
+
+        beerIds = beers.stream().map(Beer::getId).toList();
+        customerIds = customers.stream().map(Customer::getId).toList();
+        System.out.printf("Seeded %d beers and %d customers in %d ms%n", beerCount, customerCount,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * keeps concurrency requests in flight until the phase ends
+     */
+    private void runPhase(Duration phaseDuration, boolean record) {
+        long deadline = System.nanoTime() + phaseDuration.toNanos();
+        Flux.<Operation>generate(sink -> sink.next(nextOperation()))
+                .takeWhile(operation -> System.nanoTime() < deadline)
+                .flatMap(operation -> execute(operation, record), concurrency)
+                .blockLast();
+    }
+
+    private Operation nextOperation() {
+        double roll = operationRandom.nextDouble();
+        if (roll < readRatio) {
+            double read = roll / readRatio;
+            if (read < 0.5) {
+                return Operation.GET_BEER;
+            } else if (read < 0.7) {
+                return Operation.LIST_BEERS_PAGE;
+            } else if (read < 0.9) {
+                return Operation.GET_CUSTOMER;
+            }
+            return Operation.LIST_CUSTOMERS_PAGE;
+        }
+
+        double write = (roll - readRatio) / (1 - readRatio);
+        if (write < 0.5) {
+            return Operation.PATCH_BEER;
+        } else if (write < 0.8) {
+            return Operation.CREATE_BEER;
+        }
+        return Operation.CREATE_CUSTOMER;
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    private Mono<Void> execute(Operation operation, boolean record) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call(operation)
+                    .doOnSuccess(result -> {
+                        if (record) {
+                            stats.get(operation).recordSuccess(System.nanoTime() - start);
+                            if (result instanceof ReadResult read) {
+                                stats.get(operation).recordBytes(read.bytes(), read.items());
+                            }
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (record) {
+                            stats.get(operation).recordError();
+                        }
+                    })
+                    .onErrorResume(error -> Mono.empty())
+                    .then();
+        });
+    }
+
+    private Mono<?> call(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String beerId = beerIds.get(random.nextInt(beerIds.size()));
+        String customerId = customerIds.get(random.nextInt(customerIds.size()));
+
+        return switch (operation) {
+            case GET_BEER -> get(BeerRouterConfig.BEER_PATH + "/" + beerId, 1);
+            case LIST_BEERS_PAGE -> get(BeerRouterConfig.BEER_PATH + "?limit=" + PAGE_SIZE + "&beerStyle="
+                    + STYLES[random.nextInt(STYLES.length)], PAGE_SIZE);
+            case GET_CUSTOMER -> get(CustomerRouteConfig.CUSTOMER_PATH + "/" + customerId, 1);
+            case LIST_CUSTOMERS_PAGE -> get(CustomerRouteConfig.CUSTOMER_PATH + "?limit=" + PAGE_SIZE, PAGE_SIZE);
+            case CREATE_BEER -> webClient.post().uri(BeerRouterConfig.BEER_PATH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(BeerDTO.builder()
+                            .beerName("New load beer")
+                            .beerStyle(STYLES[random.nextInt(STYLES.length)])
+                            .quantitiyOnHand(random.nextInt(1000))
+                            .price(BigDecimal.valueOf(300 + random.nextInt(3000), 2))
+                            .build())
+                    .retrieve().toBodilessEntity();
+            case PATCH_BEER -> webClient.patch().uri(BeerRouterConfig.BEER_PATH + "/" + beerId)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(BeerDTO.builder().quantitiyOnHand(random.nextInt(1000)).build())
+                    .retrieve().toBodilessEntity();
+            case CREATE_CUSTOMER -> webClient.post().uri(CustomerRouteConfig.CUSTOMER_PATH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(CustomerDTO.builder().name("Load " + random.nextInt(100_000)).build())
+                    .retrieve().toBodilessEntity();
+        };
+    }
+
+    /**
+     * body is read completely, so serialization is part of the latency. items is
+     * the number of beers or customers the response has, seeded collections fill
+     * the first page.
+     */
+    private Mono<ReadResult> get(String uri, int items) {
+        return webClient.get().uri(uri)
+                .accept(readMediaType)
+                .header(HttpHeaders.ACCEPT_ENCODING, encoding)
+                .exchangeToMono(response -> response.statusCode().isError()
+                        ? response.<ReadResult>createError()
+                        : response.bodyToFlux(DataBuffer.class)
+                                .map(buffer -> {
+                                    long size = buffer.readableByteCount();
+                                    DataBufferUtils.release(buffer);
+                                    return size;
+                                })
+                                .reduce(0L, Long::sum)
+                                .map(bytes -> new ReadResult(bytes, items)));
+    }
+
+    private record ReadResult(long bytes, int items) {
+    }
+
+    private void writeResults() throws Exception {
+        double seconds = duration.toMillis() / 1000.0;
+
+        Histogram total = new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+        long totalErrors = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            operationStats.addTo(total);
+            Map<String, Object> summary = operationStats.summary(seconds);
+            totalErrors += (long) summary.get("errors");
+            if (operationStats.count() > 0 || (long) summary.get("errors") > 0) {
+                operations.put(entry.getKey().name(), summary);
+            }
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("beers", beerCount);
+        config.put("customers", customerCount);
+        config.put("concurrency", concurrency);
+        config.put("warmupSeconds", warmup.toSeconds());
+        config.put("durationSeconds", duration.toSeconds());
+        config.put("readRatio", readRatio);
+        config.put("seed", seed);
+        config.put("format", format);
+        config.put("encoding", encoding);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("config", config);
+        Map<String, Object> totalSummary = OperationStats.summary(total, totalErrors, seconds);
+        totalSummary.put("cpuMicrosPerOperation",
+                total.getTotalCount() == 0 ? 0 : cpuNanos / 1000.0 / total.getTotalCount());
+        results.put("total", totalSummary);
+        results.put("operations", operations);
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File outputFile = new File(output);
+        outputFile.getParentFile().mkdirs();
+        objectMapper.writeValue(outputFile, results);
+        System.out.println(objectMapper.writeValueAsString(results));
+        System.out.println("Results are written to " + outputFile.getAbsolutePath());
+    }
+}
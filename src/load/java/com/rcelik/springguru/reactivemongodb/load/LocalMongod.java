@@ -0,0 +1,96 @@
+package com.rcelik.springguru.reactivemongodb.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * mongod process spawned on a free local port with a throw away data
+ * directory. It does not need network or docker, only a mongod binary.
+ */
+final class LocalMongod implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Process process;
+    private final Path dataDirectory;
+    private final int port;
+
+    private LocalMongod(Process process, Path dataDirectory, int port) {
+        this.process = process;
+        this.dataDirectory = dataDirectory;
+        this.port = port;
+    }
+
+    /**
+     * starts mongod and waits until it accepts connections
+     *
+     * @param mongodPath mongod binary, looked up from PATH when it is only a name
+     */
+    static LocalMongod start(String mongodPath) throws IOException, InterruptedException {
+        Path dataDirectory = Files.createTempDirectory("load-mongod");
+        int port = freePort();
+
+        Process process = new ProcessBuilder(List.of(mongodPath,
+                "--dbpath", dataDirectory.toString(),
+                "--port", String.valueOf(port),
+                "--bind_ip", "127.0.0.1"))
+                .redirectErrorStream(true)
+                .redirectOutput(dataDirectory.resolve("mongod.log").toFile())
+                .start();
+
+        LocalMongod mongod = new LocalMongod(process, dataDirectory, port);
+        mongod.awaitStartup();
+        return mongod;
+    }
+
+    String connectionString() {
+        return "mongodb://127.0.0.1:" + port;
+    }
+
+    private void awaitStartup() throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("mongod exited with " + process.exitValue() + ", see "
+                        + dataDirectory.resolve("mongod.log"));
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 500);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        close();
+        throw new IllegalStateException("mongod did not start in " + STARTUP_TIMEOUT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            process.waitFor();
+            try (var paths = Files.walk(dataDirectory)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
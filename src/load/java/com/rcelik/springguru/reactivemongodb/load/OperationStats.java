@@ -0,0 +1,68 @@
+package com.rcelik.springguru.reactivemongodb.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram, error count and read response sizes of one operation
+ * type.
+ */
+final class OperationStats {
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder items = new LongAdder();
+
+    void recordSuccess(long latencyNanos) {
+        latencies.recordValue(Math.min(latencyNanos, latencies.getHighestTrackableValue()));
+    }
+
+    /**
+     * response body size as it is sent, before decompression
+     */
+    void recordBytes(long responseBytes, int responseItems) {
+        bytes.add(responseBytes);
+        items.add(responseItems);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    long count() {
+        return latencies.getTotalCount();
+    }
+
+    void addTo(Histogram total) {
+        total.add(latencies);
+    }
+
+    /**
+     * summary with latencies in microseconds
+     */
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = summary(latencies, errors.sum(), seconds);
+        long itemCount = items.sum();
+        if (itemCount > 0) {
+            summary.put("bytesPerItem", (double) bytes.sum() / itemCount);
+        }
+        return summary;
+    }
+
+    static Map<String, Object> summary(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+        summary.put("p50Micros", histogram.getValueAtPercentile(50) / 1000.0);
+        summary.put("p99Micros", histogram.getValueAtPercentile(99) / 1000.0);
+        summary.put("p999Micros", histogram.getValueAtPercentile(99.9) / 1000.0);
+        summary.put("maxMicros", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+}
@@ -1,38 +1,64 @@
 package com.rcelik.springguru.reactivemongodb.bootstrap;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import com.rcelik.springguru.reactivemongodb.config.BootstrapProperties;
 import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.ChangeCounter;
 import com.rcelik.springguru.reactivemongodb.repositories.BeerRepository;
+import com.rcelik.springguru.reactivemongodb.repositories.ChangeCounterRepository;
 import com.rcelik.springguru.reactivemongodb.repositories.CustomerRepository;
+import com.rcelik.springguru.reactivemongodb.service.BeerStyleSummaryService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
+// load benchmark seeds its own data, so it turns that off
+@ConditionalOnProperty(prefix = "app.bootstrap", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class BootStrapData implements CommandLineRunner {
 
     private final BeerRepository beerRepository;
     private final CustomerRepository customerRepository;
+    private final BeerStyleSummaryService styleSummaryService;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final BootstrapProperties properties;
 
+    /**
+     * blocks until data is loaded. runners finish before the application is
+     * ready, so readiness is reported after the data is there.
+     */
     @Override
     public void run(String... args) throws Exception {
-        beerRepository.deleteAll().doOnSuccess(success -> {
-            loadInitialBeerData();
-            log.info("Old data is removed");
-        }).subscribe();
-
-        customerRepository.deleteAll().doOnSuccess(success -> {
-            log.info("Older customer data is removed.");
-        }).subscribe();
+        Mono<Void> removeOldData = Mono.when(
+                beerRepository.deleteAll().doOnSuccess(success -> log.info("Old data is removed")),
+                customerRepository.deleteAll().doOnSuccess(success -> log.info("Older customer data is removed.")));
+
+        Mono<Void> loadData = properties.getMode() == BootstrapProperties.Mode.SYNTHETIC
+                ? loadSyntheticData()
+                : loadInitialBeerData();
+
+        removeOldData.then(loadData)
+                // beers are inserted directly, so style summaries are computed once at the end
+                .then(styleSummaryService.rebuild().then())
+                // counters survive restarts, listing etags given before must not match reloaded data
+                .then(Mono.when(changeCounterRepository.increment(ChangeCounter.BEERS),
+                        changeCounterRepository.increment(ChangeCounter.CUSTOMERS)))
+                .block();
     }
 
-    private void loadInitialBeerData() {
+    private Mono<Void> loadInitialBeerData() {
         Beer beer1 = Beer.builder()
                 .beerName("Space Dust")
                 .beerStyle("IPA")
@@ -55,8 +81,36 @@ public class BootStrapData implements CommandLineRunner {
                 .upc("12121213")
                 .build();
 
-        beerRepository.save(beer1).subscribe();
-        beerRepository.save(beer2).subscribe();
-        beerRepository.save(beer3).subscribe();
+        return beerRepository.saveAll(List.of(beer1, beer2, beer3)).then();
+    }
+
+    private Mono<Void> loadSyntheticData() {
+        // beers and customers are loaded one after the other so that each rate is
+        // measured alone
+        return insertInBatches("beers", SyntheticData.beers(properties.getBeerCount(), properties.getSeed()),
+                batch -> beerRepository.insert(batch).count())
+                .then(insertInBatches("customers",
+                        SyntheticData.customers(properties.getCustomerCount(), properties.getSeed()),
+                        batch -> customerRepository.insert(batch).count()));
+    }
+
+    /**
+     * documents are generated as batches are requested, at most concurrency
+     * batches are generated and inserted at a time
+     */
+    private <T> Mono<Void> insertInBatches(String name, Flux<T> documents,
+            Function<List<T>, Mono<Long>> insertBatch) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return documents.buffer(properties.getBatchSize())
+                    .flatMap(insertBatch, properties.getConcurrency())
+                    .reduce(0L, Long::sum)
+                    .doOnNext(inserted -> {
+                        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+                        log.info("Inserted {} {} in {} ms, {} docs/sec", inserted, name, elapsed.toMillis(),
+                                Math.round(inserted / Math.max(elapsed.toNanos() / 1e9, 1e-9)));
+                    })
+                    .then();
+        });
     }
 }
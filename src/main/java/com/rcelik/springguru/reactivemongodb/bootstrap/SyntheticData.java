@@ -0,0 +1,94 @@
+package com.rcelik.springguru.reactivemongodb.bootstrap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Generates realistic looking beers and customers. Documents are created
+ * lazily as they are requested and the same seed always gives the same
+ * documents in the same order.
+ */
+final class SyntheticData {
+    // styles with their share of the catalog, a few styles dominate as in real catalogs
+    private static final List<String> STYLES = List.of("IPA", "LAGER", "PALE_ALE", "STOUT", "PILSNER", "WHEAT",
+            "PORTER", "SAISON", "GOSE", "ALE");
+    private static final double[] STYLE_WEIGHTS = { 0.28, 0.20, 0.14, 0.10, 0.08, 0.07, 0.05, 0.04, 0.02, 0.02 };
+
+    private static final List<String> NAME_ADJECTIVES = List.of("Hazy", "Golden", "Dark", "Wild", "Old", "Hoppy",
+            "Crisp", "Smoky", "Bitter", "Sunny", "Midnight", "Rusty");
+    private static final List<String> NAME_NOUNS = List.of("Dust", "River", "Harbor", "Fox", "Anchor", "Orchard",
+            "Valley", "Lantern", "Summit", "Meadow", "Comet", "Barrel");
+
+    private static final List<String> FIRST_NAMES = List.of("Ada", "Alan", "Grace", "Linus", "Margaret", "Ken",
+            "Barbara", "Dennis", "Frances", "John", "Radia", "Edsger");
+    private static final List<String> LAST_NAMES = List.of("Lovelace", "Turing", "Hopper", "Torvalds", "Hamilton",
+            "Thompson", "Liskov", "Ritchie", "Allen", "Backus", "Perlman", "Dijkstra");
+
+    private SyntheticData() {
+    }
+
+    static Flux<Beer> beers(int count, long seed) {
+        // random is only used from map, which is called in order, so output is deterministic
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now();
+
+        return Flux.range(0, count).map(index -> Beer.builder()
+                .beerName(pick(NAME_ADJECTIVES, random) + " " + pick(NAME_NOUNS, random) + " " + index)
+                .beerStyle(STYLES.get(weightedIndex(STYLE_WEIGHTS, random)))
+                .upc(String.format("%012d", (long) (random.nextDouble() * 1_000_000_000_000L)))
+                .quantitiyOnHand(quantity(random))
+                .price(price(random))
+                .createdDate(now)
+                .updatedDate(now)
+                .build());
+    }
+
+    static Flux<Customer> customers(int count, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now();
+
+        return Flux.range(0, count).map(index -> Customer.builder()
+                .name(pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random))
+                .createdDate(now)
+                .lastModifiedDate(now)
+                .build());
+    }
+
+    /**
+     * log normal prices around 9, most beers are cheap and a few are expensive
+     */
+    private static BigDecimal price(Random random) {
+        double price = Math.exp(2.2 + 0.45 * random.nextGaussian());
+        return BigDecimal.valueOf(Math.min(Math.max(price, 2.0), 80.0)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * one in ten beers is out of stock, others have up to 500
+     */
+    private static int quantity(Random random) {
+        return random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(500);
+    }
+
+    private static String pick(List<String> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static int weightedIndex(double[] weights, Random random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < weights.length - 1; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -0,0 +1,123 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Collects single key lookups made within a short window and resolves them
+ * with one batch read, e.g. many findById calls become one findAllById.
+ * A batch is sent when the window passes or when maxBatchSize keys are
+ * collected, whichever comes first. Keys that the batch read does not return
+ * complete empty.
+ * At most maxConcurrentBatches batch reads run at once, the batches collected
+ * meanwhile wait in memory. A lookup that is not resolved within timeout fails,
+ * so a stuck read or a lost batch never leaves callers waiting forever.
+ */
+@Slf4j
+public class BatchLoader<K, V> {
+    public static final String BATCH_SIZE_METRIC = "app.batchloader.batch.size";
+
+    private static final long EMIT_SPIN_NANOS = Duration.ofMillis(100).toNanos();
+
+    private final String name;
+    private final Function<Set<K>, Flux<V>> batchRead;
+    private final Function<V, K> keyOf;
+    private final Duration timeout;
+    private final Sinks.Many<Pending<K, V>> pendingLookups;
+
+    /**
+     * when disabled every lookup is a batch read of its own key
+     */
+    public BatchLoader(String name, boolean enabled, Duration window, int maxBatchSize, int maxConcurrentBatches,
+            Duration timeout, Function<Set<K>, Flux<V>> batchRead, Function<V, K> keyOf,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.batchRead = batchRead;
+        this.keyOf = keyOf;
+        this.timeout = timeout;
+
+        if (!enabled) {
+            this.pendingLookups = null;
+            return;
+        }
+
+        DistributionSummary batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .description("Number of keys read with one batch read")
+                .tag("name", name)
+                .register(meterRegistry);
+
+        // not cancelled when the pipeline fails, so it can be subscribed again
+        this.pendingLookups = Sinks.many().multicast().onBackpressureBuffer(Queues.SMALL_BUFFER_SIZE, false);
+        this.pendingLookups.asFlux()
+                .bufferTimeout(maxBatchSize, window)
+                // bufferTimeout fails with overflow when it emits without demand, batches
+                // wait here while maxConcurrentBatches reads are in flight
+                .onBackpressureBuffer()
+                .doOnNext(batch -> batchSizes.record(batch.size()))
+                .flatMap(this::resolve, maxConcurrentBatches)
+                // lookups of the lost batches time out, later lookups are served again
+                .doOnError(error -> log.error("Batch loader {} failed, it is restarted", name, error))
+                .retry()
+                .subscribe();
+    }
+
+    public Mono<V> load(K key) {
+        if (pendingLookups == null) {
+            return batchRead.apply(Set.of(key)).next();
+        }
+
+        return Mono.defer(() -> {
+            Pending<K, V> pending = new Pending<>(key, Sinks.one());
+            // lookups come from many threads, emission is retried until it is serialized
+            long deadline = System.nanoTime() + EMIT_SPIN_NANOS;
+            Sinks.EmitResult emitResult = pendingLookups.tryEmitNext(pending);
+            while (emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED && System.nanoTime() < deadline) {
+                emitResult = pendingLookups.tryEmitNext(pending);
+            }
+            if (emitResult.isFailure()) {
+                return Mono.error(new IllegalStateException(
+                        "batch loader " + name + " did not take the lookup: " + emitResult));
+            }
+            return pending.result().asMono().timeout(timeout);
+        });
+    }
+
+    private Mono<Void> resolve(List<Pending<K, V>> batch) {
+        Set<K> keys = new LinkedHashSet<>();
+        batch.forEach(pending -> keys.add(pending.key()));
+
+        return batchRead.apply(keys)
+                .collectMap(keyOf)
+                .doOnNext(found -> complete(batch, found))
+                // a failed batch fails its lookups, later batches are still read
+                .doOnError(error -> batch.forEach(pending -> pending.result().tryEmitError(error)))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private void complete(List<Pending<K, V>> batch, Map<K, V> found) {
+        for (Pending<K, V> pending : batch) {
+            V value = found.get(pending.key());
+            if (value == null) {
+                pending.result().tryEmitEmpty();
+            } else {
+                pending.result().tryEmitValue(value);
+            }
+        }
+    }
+
+    private record Pending<K, V>(K key, Sinks.One<V> result) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Sums integer deltas per key in memory and hands the sums to a writer in one
+ * batch, e.g. many +1/-1 updates of the same document become one $inc.
+ * A batch is written every flushInterval, or earlier when maxEntries keys have
+ * a delta. Keys are spread over independently locked stripes so adds of
+ * different keys rarely wait for each other. Deltas that sum to 0 are dropped.
+ * The writer returns the keys whose deltas were surely not written, those are
+ * added back and written with the next flush. When the writer fails it cannot
+ * tell what is written, the batch is dropped rather than written twice.
+ * Closing writes what is left.
+ */
+@Slf4j
+public class DeltaBuffer<K> {
+    public static final String FLUSH_SIZE_METRIC = "app.deltabuffer.flush.size";
+    public static final String PENDING_METRIC = "app.deltabuffer.pending";
+
+    private final String name;
+    private final Function<Map<K, Integer>, Mono<Set<K>>> writer;
+    private final int maxEntries;
+    private final Map<K, Integer>[] stripes;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Sinks.Many<Integer> fullSignals = Sinks.many().unicast().onBackpressureBuffer();
+    private final Sinks.One<Boolean> closing = Sinks.one();
+    private final DistributionSummary flushSizes;
+    private final CompletableFuture<Void> flushes;
+    private volatile boolean closed;
+
+    /**
+     * stripes is rounded up to a power of two. writer returns the keys of the
+     * batch that are not written, empty means all are written.
+     */
+    @SuppressWarnings("unchecked")
+    public DeltaBuffer(String name, Duration flushInterval, int maxEntries, int stripes,
+            Function<Map<K, Integer>, Mono<Set<K>>> writer, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.writer = writer;
+        this.maxEntries = maxEntries;
+
+        int stripeCount = 1;
+        while (stripeCount < stripes) {
+            stripeCount <<= 1;
+        }
+        this.stripes = new Map[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new HashMap<>();
+        }
+
+        this.flushSizes = DistributionSummary.builder(FLUSH_SIZE_METRIC)
+                .description("Number of keys written with one flush")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder(PENDING_METRIC, pending, AtomicInteger::get)
+                .description("Number of keys with a delta waiting to be written")
+                .tag("name", name)
+                .register(meterRegistry);
+
+        this.flushes = Flux.merge(Flux.interval(flushInterval), fullSignals.asFlux())
+                // a flush that is running writes what the dropped signals would
+                .onBackpressureDrop()
+                .takeUntilOther(closing.asMono())
+                .concatMap(signal -> flush(), 1)
+                .then(Mono.defer(this::flush))
+                .toFuture();
+    }
+
+    /**
+     * adds the delta to the sum of the key, fails once the buffer is closed
+     */
+    public void add(K key, int delta) {
+        if (closed) {
+            throw new IllegalStateException("delta buffer " + name + " is closed");
+        }
+        merge(key, delta);
+    }
+
+    private void merge(K key, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        Map<K, Integer> stripe = stripes[stripeOf(key)];
+        int added;
+        synchronized (stripe) {
+            int before = stripe.size();
+            stripe.merge(key, delta, DeltaBuffer::sum);
+            added = stripe.size() - before;
+        }
+        if (added != 0 && pending.addAndGet(added) == maxEntries && added > 0) {
+            // best effort, the interval flushes anyway
+            fullSignals.tryEmitNext(maxEntries);
+        }
+    }
+
+    // null removes the key from the stripe
+    private static Integer sum(Integer left, Integer right) {
+        int sum = left + right;
+        return sum == 0 ? null : sum;
+    }
+
+    private int stripeOf(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * stops the periodic flushes, writes the remaining deltas and waits for
+     * the write to finish
+     */
+    public void close() {
+        closed = true;
+        closing.tryEmitValue(true);
+        flushes.join();
+    }
+
+    private Mono<Void> flush() {
+        Map<K, Integer> batch = drain();
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+
+        flushSizes.record(batch.size());
+        return writer.apply(batch)
+                .doOnNext(failedKeys -> retry(batch, failedKeys))
+                .onErrorResume(error -> {
+                    // some of the batch may be written, writing it again could add deltas twice
+                    log.error("Writing {} {} deltas failed, it is not known which are written, they are dropped",
+                            batch.size(), name, error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void retry(Map<K, Integer> batch, Set<K> failedKeys) {
+        if (failedKeys.isEmpty()) {
+            return;
+        }
+        if (closed) {
+            log.error("Writing {} of {} {} deltas failed on close, they are lost", failedKeys.size(), batch.size(),
+                    name);
+            return;
+        }
+
+        log.warn("Writing {} of {} {} deltas failed, they are retried with the next flush", failedKeys.size(),
+                batch.size(), name);
+        batch.forEach((key, delta) -> {
+            if (failedKeys.contains(key)) {
+                merge(key, delta);
+            }
+        });
+    }
+
+    private Map<K, Integer> drain() {
+        Map<K, Integer> batch = new HashMap<>();
+        for (Map<K, Integer> stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.isEmpty()) {
+                    continue;
+                }
+                batch.putAll(stripe);
+                pending.addAndGet(-stripe.size());
+                stripe.clear();
+            }
+        }
+        return batch;
+    }
+}
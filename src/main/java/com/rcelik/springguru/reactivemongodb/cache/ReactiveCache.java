@@ -0,0 +1,69 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rcelik.springguru.reactivemongodb.config.LookupCacheProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bounded read-through cache for Mono lookups.
+ * Concurrent lookups of the same missing key share one load. Empty results
+ * are not cached. When the cache is disabled, lookups go to the loader
+ * directly.
+ */
+public class ReactiveCache<K, V> {
+    private final AsyncCache<K, V> cache;
+
+    private ReactiveCache(AsyncCache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * creates the cache and registers its hit, miss and eviction statistics with
+     * the given name
+     */
+    public static <K, V> ReactiveCache<K, V> create(String name, LookupCacheProperties.Spec spec,
+            MeterRegistry meterRegistry) {
+        if (!spec.isEnabled()) {
+            return new ReactiveCache<>(null);
+        }
+
+        AsyncCache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), name);
+        return new ReactiveCache<>(cache);
+    }
+
+    public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+        if (cache == null) {
+            return loader.apply(key);
+        }
+
+        // copy is returned so that a cancelled subscriber does not cancel the
+        // load that other subscribers are waiting for
+        return Mono.fromFuture(() -> cache.get(key, (k, executor) -> loader.apply(k).toFuture()).copy());
+    }
+
+    public void invalidate(K key) {
+        if (cache != null && key != null) {
+            cache.synchronous().invalidate(key);
+        }
+    }
+
+    /**
+     * used when the changed keys are not known, e.g. after a delete by filter
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.synchronous().invalidateAll();
+        }
+    }
+}
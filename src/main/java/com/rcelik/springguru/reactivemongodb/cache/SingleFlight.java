@@ -0,0 +1,69 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalesces concurrent identical reads. While a read of a key is in flight,
+ * other reads of the same key subscribe to it instead of starting their own,
+ * and get every element it emits, including the ones emitted before they
+ * joined. Nothing is kept after the read terminates, so results are never
+ * older than the in-flight window.
+ * A subscriber that cancels does not cancel the read for the others.
+ */
+public class SingleFlight<K, V> {
+    public static final String REQUESTS_METRIC = "app.singleflight.requests";
+    public static final String COALESCED_METRIC = "app.singleflight.coalesced";
+
+    private final ConcurrentMap<K, Flux<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter requests;
+    private final Counter coalesced;
+
+    /**
+     * registers request and coalesced request counters tagged with the given
+     * name
+     */
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.requests = Counter.builder(REQUESTS_METRIC)
+                .description("Reads that went through single flight")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder(COALESCED_METRIC)
+                .description("Reads that joined a read already in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public Flux<V> flux(K key, Function<K, Flux<V>> loader) {
+        return Flux.defer(() -> {
+            requests.increment();
+
+            AtomicReference<Flux<V>> created = new AtomicReference<>();
+            Flux<V> shared = inFlight.computeIfAbsent(key, k -> {
+                Flux<V> read = Flux.defer(() -> loader.apply(k))
+                        // removed only if it is still this read, a newer one may be in flight
+                        .doFinally(signal -> inFlight.remove(k, created.get()))
+                        .replay()
+                        .refCount();
+                created.set(read);
+                return read;
+            });
+
+            if (shared != created.get()) {
+                coalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    public Mono<V> mono(K key, Function<K, Mono<V>> loader) {
+        return flux(key, k -> loader.apply(k).flux()).singleOrEmpty();
+    }
+}
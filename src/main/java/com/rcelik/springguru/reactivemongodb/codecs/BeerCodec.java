@@ -0,0 +1,63 @@
+package com.rcelik.springguru.reactivemongodb.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+
+/**
+ * Reads and writes Beer directly from/to BSON without reflection and without
+ * an intermediate Document. Field names and value types are the same as the
+ * ones MappingMongoConverter uses.
+ */
+public class BeerCodec implements Codec<Beer> {
+
+    @Override
+    public void encode(BsonWriter writer, Beer beer, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        BsonFields.writeId(writer, beer.getId());
+        BsonFields.writeString(writer, "beerName", beer.getBeerName());
+        BsonFields.writeString(writer, "beerStyle", beer.getBeerStyle());
+        BsonFields.writeString(writer, "upc", beer.getUpc());
+        BsonFields.writeInteger(writer, "quantitiyOnHand", beer.getQuantitiyOnHand());
+        BsonFields.writeDecimal(writer, "price", beer.getPrice());
+        BsonFields.writeDateTime(writer, "createdDate", beer.getCreatedDate());
+        BsonFields.writeDateTime(writer, "updatedDate", beer.getUpdatedDate());
+        BsonFields.writeLong(writer, "version", beer.getVersion());
+        writer.writeString(BsonFields.CLASS_FIELD, Beer.class.getName());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Beer decode(BsonReader reader, DecoderContext decoderContext) {
+        Beer.BeerBuilder beer = Beer.builder();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case BsonFields.ID_FIELD -> beer.id(BsonFields.readId(reader));
+                case "beerName" -> beer.beerName(BsonFields.readString(reader));
+                case "beerStyle" -> beer.beerStyle(BsonFields.readString(reader));
+                case "upc" -> beer.upc(BsonFields.readString(reader));
+                case "quantitiyOnHand" -> beer.quantitiyOnHand(BsonFields.readInteger(reader));
+                case "price" -> beer.price(BsonFields.readDecimal(reader));
+                case "createdDate" -> beer.createdDate(BsonFields.readDateTime(reader));
+                case "updatedDate" -> beer.updatedDate(BsonFields.readDateTime(reader));
+                case "version" -> beer.version(BsonFields.readLong(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return beer.build();
+    }
+
+    @Override
+    public Class<Beer> getEncoderClass() {
+        return Beer.class;
+    }
+}
@@ -0,0 +1,137 @@
+package com.rcelik.springguru.reactivemongodb.codecs;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+/**
+ * Reads and writes field values the same way MappingMongoConverter stores
+ * them, so documents written by codecs and by the converter are
+ * interchangeable.
+ */
+final class BsonFields {
+    static final String ID_FIELD = "_id";
+    static final String CLASS_FIELD = "_class";
+
+    private BsonFields() {
+    }
+
+    /**
+     * ids that are valid object ids are stored as ObjectId, others as string
+     */
+    static void writeId(BsonWriter writer, String id) {
+        if (id == null) {
+            return;
+        }
+        if (ObjectId.isValid(id)) {
+            writer.writeObjectId(ID_FIELD, new ObjectId(id));
+        } else {
+            writer.writeString(ID_FIELD, id);
+        }
+    }
+
+    static String readId(BsonReader reader) {
+        return reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                ? reader.readObjectId().toHexString()
+                : readString(reader);
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value != null) {
+            writer.writeString(name, value);
+        }
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        return reader.readString();
+    }
+
+    static void writeInteger(BsonWriter writer, String name, Integer value) {
+        if (value != null) {
+            writer.writeInt32(name, value);
+        }
+    }
+
+    static Integer readInteger(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> (int) reader.readInt64();
+            case DOUBLE -> (int) reader.readDouble();
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    static void writeLong(BsonWriter writer, String name, Long value) {
+        if (value != null) {
+            writer.writeInt64(name, value);
+        }
+    }
+
+    static Long readLong(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT64 -> reader.readInt64();
+            case INT32 -> (long) reader.readInt32();
+            case DOUBLE -> (long) reader.readDouble();
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    /**
+     * big decimals are stored as Decimal128, see DecimalConverters. strings
+     * written before are still read.
+     */
+    static void writeDecimal(BsonWriter writer, String name, BigDecimal value) {
+        if (value != null) {
+            writer.writeDecimal128(name, new Decimal128(value));
+        }
+    }
+
+    static BigDecimal readDecimal(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case STRING -> new BigDecimal(reader.readString());
+            case DECIMAL128 -> reader.readDecimal128().bigDecimalValue();
+            case DOUBLE -> BigDecimal.valueOf(reader.readDouble());
+            case INT32 -> BigDecimal.valueOf(reader.readInt32());
+            case INT64 -> BigDecimal.valueOf(reader.readInt64());
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    /**
+     * local date times are stored as date in system time zone by default
+     * converter
+     */
+    static void writeDateTime(BsonWriter writer, String name, LocalDateTime value) {
+        if (value != null) {
+            writer.writeDateTime(name, value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    static LocalDateTime readDateTime(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.DATE_TIME) {
+            reader.skipValue();
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZoneId.systemDefault());
+    }
+}
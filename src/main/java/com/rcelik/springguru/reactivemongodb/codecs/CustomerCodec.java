@@ -0,0 +1,55 @@
+package com.rcelik.springguru.reactivemongodb.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+
+/**
+ * Reads and writes Customer directly from/to BSON without reflection and
+ * without an intermediate Document. Field names and value types are the same
+ * as the ones MappingMongoConverter uses.
+ */
+public class CustomerCodec implements Codec<Customer> {
+
+    @Override
+    public void encode(BsonWriter writer, Customer customer, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        BsonFields.writeId(writer, customer.getId());
+        BsonFields.writeString(writer, "name", customer.getName());
+        BsonFields.writeDateTime(writer, "createdDate", customer.getCreatedDate());
+        BsonFields.writeDateTime(writer, "lastModifiedDate", customer.getLastModifiedDate());
+        BsonFields.writeLong(writer, "version", customer.getVersion());
+        writer.writeString(BsonFields.CLASS_FIELD, Customer.class.getName());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Customer decode(BsonReader reader, DecoderContext decoderContext) {
+        Customer.CustomerBuilder customer = Customer.builder();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case BsonFields.ID_FIELD -> customer.id(BsonFields.readId(reader));
+                case "name" -> customer.name(BsonFields.readString(reader));
+                case "createdDate" -> customer.createdDate(BsonFields.readDateTime(reader));
+                case "lastModifiedDate" -> customer.lastModifiedDate(BsonFields.readDateTime(reader));
+                case "version" -> customer.version(BsonFields.readLong(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return customer.build();
+    }
+
+    @Override
+    public Class<Customer> getEncoderClass() {
+        return Customer.class;
+    }
+}
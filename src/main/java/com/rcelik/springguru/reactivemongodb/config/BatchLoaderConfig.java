@@ -0,0 +1,26 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.rcelik.springguru.reactivemongodb.cache.BatchLoader;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.repositories.BeerRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates the loader that turns concurrent beer lookups by id into one
+ * findAllById. Batch sizes are published as app.batchloader.batch.size.
+ */
+@Configuration
+public class BatchLoaderConfig {
+
+    @Bean
+    BatchLoader<String, Beer> beerBatchLoader(BatchLoaderProperties properties, BeerRepository beerRepository,
+            MeterRegistry meterRegistry) {
+        return new BatchLoader<>("beer", properties.isEnabled(), properties.getWindow(),
+                properties.getMaxBatchSize(), properties.getMaxConcurrentBatches(), properties.getTimeout(),
+                beerRepository::findAllById, Beer::getId, meterRegistry);
+    }
+}
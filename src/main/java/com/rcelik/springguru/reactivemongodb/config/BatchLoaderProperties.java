@@ -0,0 +1,34 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of batching single beer lookups into one read.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.batch-loader")
+public class BatchLoaderProperties {
+    private boolean enabled = true;
+
+    /**
+     * how long lookups are collected before they are read together, it is
+     * added to the latency of a lookup that waits alone
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    private int maxBatchSize = 100;
+
+    /**
+     * batch reads that run at once, batches collected meanwhile wait in memory
+     */
+    private int maxConcurrentBatches = 16;
+
+    /**
+     * a lookup that is not resolved in time fails instead of waiting forever
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+}
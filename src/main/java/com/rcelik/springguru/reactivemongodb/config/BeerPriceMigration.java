@@ -0,0 +1,118 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rewrites beer prices stored as string by older versions as Decimal128.
+ * It runs online: beers are read in _id order in small batches, every batch is
+ * written with one unordered bulk write, and a beer is only updated when its
+ * price is still the string that was read, so concurrent updates are not
+ * overwritten. Running it again continues with the beers that are left.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BeerPriceMigration {
+    private static final String ID_FIELD = "_id";
+    private static final String PRICE_FIELD = "price";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final PriceMigrationProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        migrate().subscribe(
+                migrated -> log.info("Migrated {} beer prices to Decimal128", migrated),
+                error -> log.error("Beer price migration failed", error));
+    }
+
+    /**
+     * returns the number of migrated beers
+     */
+    public Mono<Long> migrate() {
+        return migrateBatch(null)
+                .expand(batch -> batch.lastId() == null
+                        ? Mono.empty()
+                        : Mono.delay(properties.getBatchDelay()).then(migrateBatch(batch.lastId())))
+                .map(MigratedBatch::migrated)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<MigratedBatch> migrateBatch(Object afterId) {
+        // seeking by _id skips prices that can not be parsed instead of reading them again
+        Bson filter = afterId == null
+                ? Filters.type(PRICE_FIELD, BsonType.STRING)
+                : Filters.and(Filters.type(PRICE_FIELD, BsonType.STRING), Filters.gt(ID_FIELD, afterId));
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Beer.class))
+                .flatMap(collection -> Flux.from(collection.find(filter)
+                        .projection(Projections.include(PRICE_FIELD))
+                        .sort(Sorts.ascending(ID_FIELD))
+                        .limit(properties.getBatchSize()))
+                        .collectList()
+                        .flatMap(beers -> {
+                            if (beers.isEmpty()) {
+                                return Mono.just(new MigratedBatch(null, 0));
+                            }
+
+                            Object lastId = beers.get(beers.size() - 1).get(ID_FIELD);
+                            List<WriteModel<Document>> updates = toUpdates(beers);
+                            if (updates.isEmpty()) {
+                                return Mono.just(new MigratedBatch(lastId, 0));
+                            }
+                            return Mono.from(collection.bulkWrite(updates))
+                                    .map(result -> new MigratedBatch(lastId, result.getModifiedCount()));
+                        }));
+    }
+
+    private static List<WriteModel<Document>> toUpdates(List<Document> beers) {
+        List<WriteModel<Document>> updates = new ArrayList<>(beers.size());
+        for (Document beer : beers) {
+            String price = beer.getString(PRICE_FIELD);
+            Decimal128 decimal;
+            try {
+                decimal = new Decimal128(new BigDecimal(price));
+            } catch (NumberFormatException e) {
+                log.warn("Price of beer {} is not a number, it is not migrated: {}", beer.get(ID_FIELD), price);
+                continue;
+            }
+            updates.add(new UpdateOneModel<>(
+                    Filters.and(Filters.eq(ID_FIELD, beer.get(ID_FIELD)), Filters.eq(PRICE_FIELD, price)),
+                    Updates.set(PRICE_FIELD, decimal)));
+        }
+        return updates;
+    }
+
+    /**
+     * lastId is null when there is nothing left to migrate
+     */
+    private record MigratedBatch(Object lastId, long migrated) {
+    }
+}
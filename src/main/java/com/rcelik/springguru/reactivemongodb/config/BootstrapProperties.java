@@ -0,0 +1,48 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of the data loaded at startup by BootStrapData.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bootstrap")
+public class BootstrapProperties {
+    public enum Mode {
+        /**
+         * a few hand written beers
+         */
+        SAMPLE,
+        /**
+         * beerCount beers and customerCount customers generated from seed
+         */
+        SYNTHETIC
+    }
+
+    /**
+     * existing beers and customers are deleted and data is loaded at startup
+     */
+    private boolean enabled = true;
+
+    private Mode mode = Mode.SAMPLE;
+
+    private int beerCount = 100_000;
+    private int customerCount = 10_000;
+
+    /**
+     * same seed generates the same documents
+     */
+    private long seed = 42;
+
+    /**
+     * number of documents inserted with one insert command
+     */
+    private int batchSize = 1000;
+
+    /**
+     * number of insert commands running at the same time
+     */
+    private int concurrency = 8;
+}
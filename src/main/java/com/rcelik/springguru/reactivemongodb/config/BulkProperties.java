@@ -0,0 +1,22 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings for bulk create endpoints.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bulk")
+public class BulkProperties {
+    /**
+     * number of documents written to mongo in one bulk write
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * number of bulk writes that can run at the same time
+     */
+    private int concurrency = 4;
+}
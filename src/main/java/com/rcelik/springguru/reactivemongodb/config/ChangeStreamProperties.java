@@ -0,0 +1,19 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings for change stream backed live feeds.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.change-stream")
+public class ChangeStreamProperties {
+    /**
+     * maximum number of events kept for a slow subscriber. when it is exceeded
+     * the stream of that subscriber fails and the client should reconnect with
+     * the last resume token it has.
+     */
+    private int bufferSize = 256;
+}
@@ -0,0 +1,53 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of adaptive concurrency limits of route groups. every group has its
+ * own limit, they start from the same settings.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+
+    /**
+     * limit before any latency is observed
+     */
+    private int initialLimit = 50;
+
+    private int minLimit = 8;
+
+    private int maxLimit = 1000;
+
+    /**
+     * how many times the long term latency the recent latency can be before
+     * the limit shrinks
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * share of the new limit applied with each sample, smaller moves slower
+     * but steadier
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * number of samples the long term latency is averaged over
+     */
+    private int longWindow = 600;
+
+    /**
+     * number of samples the recent latency is averaged over
+     */
+    private int shortWindow = 10;
+
+    /**
+     * sent as Retry-After to rejected requests
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,45 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.bson.types.Decimal128;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+/**
+ * Stores BigDecimal values as Decimal128 instead of the default string, so
+ * range queries, sorting and aggregations on prices are numeric and can use
+ * indexes.
+ * Strings written before the change are still read by the default converters,
+ * BeerPriceMigration rewrites them.
+ */
+public final class DecimalConverters {
+    private DecimalConverters() {
+    }
+
+    public static List<Converter<?, ?>> converters() {
+        return List.of(BigDecimalToDecimal128Converter.INSTANCE, Decimal128ToBigDecimalConverter.INSTANCE);
+    }
+
+    @WritingConverter
+    enum BigDecimalToDecimal128Converter implements Converter<BigDecimal, Decimal128> {
+        INSTANCE;
+
+        @Override
+        public Decimal128 convert(BigDecimal source) {
+            return new Decimal128(source);
+        }
+    }
+
+    @ReadingConverter
+    enum Decimal128ToBigDecimalConverter implements Converter<Decimal128, BigDecimal> {
+        INSTANCE;
+
+        @Override
+        public BigDecimal convert(Decimal128 source) {
+            return source.bigDecimalValue();
+        }
+    }
+}
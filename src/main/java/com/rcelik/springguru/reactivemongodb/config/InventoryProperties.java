@@ -0,0 +1,42 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of inventory adjustments (POST /api/v3/beers/{beerId}/inventory/adjust).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryProperties {
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class WriteBehind {
+        /**
+         * when enabled adjustments are summed per beer in memory and written
+         * later, otherwise each one is written before it is answered
+         */
+        private boolean enabled = false;
+
+        /**
+         * buffered adjustments are written at least that often
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+
+        /**
+         * buffered adjustments are written earlier when that many beers have
+         * one
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * number of independently locked parts of the buffer, rounded up to a
+         * power of two
+         */
+        private int stripes = 16;
+    }
+}
@@ -0,0 +1,28 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.rcelik.springguru.reactivemongodb.cache.ReactiveCache;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates read-through caches used by services for lookups by id.
+ * Statistics are published as cache.* metrics tagged with cache name.
+ */
+@Configuration
+public class LookupCacheConfig {
+
+    @Bean
+    ReactiveCache<String, Beer> beerCache(LookupCacheProperties properties, MeterRegistry meterRegistry) {
+        return ReactiveCache.create("beers", properties.getBeer(), meterRegistry);
+    }
+
+    @Bean
+    ReactiveCache<String, Customer> customerCache(LookupCacheProperties properties, MeterRegistry meterRegistry) {
+        return ReactiveCache.create("customers", properties.getCustomer(), meterRegistry);
+    }
+}
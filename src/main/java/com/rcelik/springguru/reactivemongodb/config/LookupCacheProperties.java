@@ -0,0 +1,33 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings for the read-through caches in front of lookups by id.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class LookupCacheProperties {
+    private Spec beer = new Spec();
+    private Spec customer = new Spec();
+
+    @Data
+    public static class Spec {
+        private boolean enabled = true;
+
+        /**
+         * maximum number of entries, least used ones are evicted first
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * entries are evicted after that time even if they are not changed, it
+         * bounds how long a concurrent write can leave a stale entry
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,77 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of the mongo client used by repositories.
+ * Credentials, compressors and read preference are only applied when they are
+ * set, otherwise the ones in the connection string or the driver defaults are
+ * used. application.properties sets them for the docker-compose mongo
+ * container.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.mongo")
+public class MongoClientProperties {
+    /**
+     * optional connection string, settings below that are set override the
+     * ones given in it
+     */
+    private String uri;
+
+    private String host = "127.0.0.1";
+    private int port = 27017;
+    private String database = "sfg";
+
+    private String username;
+    private String password;
+    private String authenticationDatabase = "admin";
+
+    /**
+     * wire compressors in order of preference, server uses the first one it
+     * supports. zstd, snappy and zlib are supported.
+     */
+    private List<String> compressors = List.of();
+
+    /**
+     * primary, primaryPreferred, secondary, secondaryPreferred or nearest
+     */
+    private String readPreference;
+
+    /**
+     * local, majority, linearizable, snapshot or available. server default is
+     * used when not set.
+     */
+    private String readConcern;
+
+    /**
+     * when true custom repository reads decode documents with BeerCodec and
+     * CustomerCodec, when false they go through MappingMongoConverter
+     */
+    private boolean entityCodecs = true;
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration socketTimeout = Duration.ofSeconds(30);
+
+    private Pool pool = new Pool();
+
+    @Data
+    public static class Pool {
+        private int minSize = 0;
+        private int maxSize = 100;
+
+        /**
+         * how long a request waits for a free connection before failing
+         */
+        private Duration maxWaitTime = Duration.ofSeconds(2);
+
+        /**
+         * idle connections are closed after that time
+         */
+        private Duration maxConnectionIdleTime = Duration.ofMinutes(5);
+    }
+}
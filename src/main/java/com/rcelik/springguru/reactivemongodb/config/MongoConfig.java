@@ -1,45 +1,117 @@
 package com.rcelik.springguru.reactivemongodb.config;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-import org.springframework.context.annotation.Bean;
+import org.bson.codecs.configuration.CodecRegistries;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractReactiveMongoConfiguration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions.MongoConverterConfigurationAdapter;
+import org.springframework.util.StringUtils;
 
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoCompressor;
 import com.mongodb.MongoCredential;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.MongoClientSettings.Builder;
-import com.mongodb.reactivestreams.client.MongoClient;
-import com.mongodb.reactivestreams.client.MongoClients;
+import com.rcelik.springguru.reactivemongodb.codecs.BeerCodec;
+import com.rcelik.springguru.reactivemongodb.codecs.CustomerCodec;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import lombok.RequiredArgsConstructor;
 
 @Configuration
+@RequiredArgsConstructor
 public class MongoConfig extends AbstractReactiveMongoConfiguration {
 
+    private final MongoClientProperties properties;
+    private final MeterRegistry meterRegistry;
+
     // need to update the database name for the application
     @Override
     protected String getDatabaseName() {
-        return "sfg";
+        return properties.getDatabase();
     }
 
-    // creates mongo client bean that runs reactive programming manner
-    @Bean
-    MongoClient mongoClient() {
-        return MongoClients.create();
+    // indexes are not created while mapping context is initialized, so that index
+    // builds do not block the startup. MongoIndexReconciler creates them in background
+    @Override
+    protected boolean autoIndexCreation() {
+        return false;
     }
 
-    // to authorize the application with mongo db credential, need to override that
-    // method
+    // prices are stored as Decimal128 so that they are compared as numbers
+    @Override
+    protected void configureConverters(MongoConverterConfigurationAdapter adapter) {
+        adapter.registerConverters(DecimalConverters.converters());
+    }
+
+    // settings are applied to the reactive mongo client bean created by
+    // AbstractReactiveMongoConfiguration which is the one repositories use
     @Override
     protected void configureClientSettings(Builder builder) {
-        // root/example are user/password for used mongo db docker container
-        // admin is general database name
-        MongoCredential credential = MongoCredential.createCredential("root", "admin", "example".toCharArray());
-
-        // need to initialize cluster settings for mongo db docker container
-        // 127.0.0.1 is the mongo docker container access url and 27017 is the port 
-        builder.credential(credential).applyToClusterSettings(settings -> {
-            settings.hosts(Collections.singletonList(new ServerAddress("127.0.0.1", 27017)));
-        });
+        if (StringUtils.hasText(properties.getUri())) {
+            builder.applyConnectionString(new ConnectionString(properties.getUri()));
+        } else {
+            // 127.0.0.1 is the mongo docker container access url and 27017 is the port
+            builder.applyToClusterSettings(settings -> settings
+                    .hosts(Collections.singletonList(new ServerAddress(properties.getHost(), properties.getPort()))));
+        }
+
+        // credentials given in the connection string are kept unless a username is set
+        if (StringUtils.hasText(properties.getUsername())) {
+            char[] password = properties.getPassword() == null ? new char[0] : properties.getPassword().toCharArray();
+            builder.credential(MongoCredential.createCredential(properties.getUsername(),
+                    properties.getAuthenticationDatabase(), password));
+        }
+
+        MongoClientProperties.Pool pool = properties.getPool();
+        builder.applyToConnectionPoolSettings(settings -> settings
+                .minSize(pool.getMinSize())
+                .maxSize(pool.getMaxSize())
+                .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                .maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                // publishes pool size, checked out connections and wait queue size
+                .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry)));
+
+        builder.applyToSocketSettings(settings -> settings
+                .connectTimeout((int) properties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout((int) properties.getSocketTimeout().toMillis(), TimeUnit.MILLISECONDS));
+
+        // publishes mongodb.driver.commands timer tagged with command and collection
+        builder.addCommandListener(new MongoMetricsCommandListener(meterRegistry));
+
+        // entity codecs are used by collections typed with Beer or Customer, documents
+        // are still decoded by the default registry
+        builder.codecRegistry(CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new BeerCodec(), new CustomerCodec()),
+                MongoClientSettings.getDefaultCodecRegistry()));
+
+        if (!properties.getCompressors().isEmpty()) {
+            builder.compressorList(compressors(properties.getCompressors()));
+        }
+        if (StringUtils.hasText(properties.getReadPreference())) {
+            builder.readPreference(ReadPreference.valueOf(properties.getReadPreference()));
+        }
+        if (StringUtils.hasText(properties.getReadConcern())) {
+            builder.readConcern(new ReadConcern(ReadConcernLevel.fromString(properties.getReadConcern())));
+        }
+    }
+
+    private static List<MongoCompressor> compressors(List<String> names) {
+        return names.stream().map(name -> switch (name) {
+            case "zstd" -> MongoCompressor.createZstdCompressor();
+            case "snappy" -> MongoCompressor.createSnappyCompressor();
+            case "zlib" -> MongoCompressor.createZlibCompressor();
+            default -> throw new IllegalArgumentException("Unknown mongo compressor: " + name);
+        }).toList();
     }
 
 }
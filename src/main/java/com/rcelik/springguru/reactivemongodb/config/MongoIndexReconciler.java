@@ -0,0 +1,93 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compares indexes declared on documents with the indexes that exist in mongo
+ * and creates the missing ones. Extra indexes are only reported, they are not
+ * dropped.
+ * Auto index creation is disabled in MongoConfig so that index builds do not
+ * block the startup, this runs in background after the application is ready.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexReconciler {
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Beer.class, Customer.class);
+    private static final String ID_INDEX = "_id_";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcileAll().subscribe(
+                report -> log.info("Indexes of {}: created {}, extra {}", report.collection(), report.missing(),
+                        report.extra()),
+                error -> log.error("Index reconciliation failed", error));
+    }
+
+    public Flux<IndexReport> reconcileAll() {
+        return Flux.fromIterable(INDEXED_DOCUMENTS).concatMap(this::reconcile);
+    }
+
+    private Mono<IndexReport> reconcile(Class<?> documentType) {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        List<IndexDefinition> declared = StreamSupport
+                .stream(resolver.resolveIndexFor(documentType).spliterator(), false)
+                .map(IndexDefinition.class::cast)
+                .toList();
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(documentType);
+
+        return indexOps.getIndexInfo()
+                .map(IndexInfo::getName)
+                .collect(Collectors.toSet())
+                .flatMap(existing -> {
+                    List<IndexDefinition> missing = declared.stream()
+                            .filter(definition -> !existing.contains(indexName(definition)))
+                            .toList();
+
+                    Set<String> extra = new HashSet<>(existing);
+                    extra.remove(ID_INDEX);
+                    declared.forEach(definition -> extra.remove(indexName(definition)));
+
+                    IndexReport report = new IndexReport(mongoTemplate.getCollectionName(documentType),
+                            missing.stream().map(MongoIndexReconciler::indexName).toList(), List.copyOf(extra));
+
+                    return Flux.fromIterable(missing)
+                            .concatMap(indexOps::ensureIndex)
+                            .then(Mono.just(report));
+                });
+    }
+
+    private static String indexName(IndexDefinition definition) {
+        // every declared index has an explicit name
+        return definition.getIndexOptions().getString("name");
+    }
+
+    /**
+     * missing indexes are the ones that are created by the reconciliation
+     */
+    public record IndexReport(String collection, List<String> missing, List<String> extra) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of the migration that rewrites string beer prices as Decimal128.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.migration.price")
+public class PriceMigrationProperties {
+    /**
+     * runs the migration in background after the application is ready
+     */
+    private boolean enabled = true;
+
+    /**
+     * number of documents rewritten with one bulk write
+     */
+    private int batchSize = 500;
+
+    /**
+     * pause between batches so that the migration does not compete with
+     * requests for the server
+     */
+    private Duration batchDelay = Duration.ofMillis(50);
+}
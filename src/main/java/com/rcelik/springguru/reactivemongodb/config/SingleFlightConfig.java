@@ -0,0 +1,28 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.rcelik.springguru.reactivemongodb.cache.SingleFlight;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates single flights that coalesce concurrent identical beer reads.
+ * Both have the same type, they are injected by name.
+ * Counts are published as app.singleflight.* metrics tagged with name.
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    @Bean
+    SingleFlight<String, Beer> beerLookups(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("beer", meterRegistry);
+    }
+
+    @Bean
+    SingleFlight<String, Beer> beerStyleLookups(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("beerStyle", meterRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings for streaming (NDJSON / server sent events) listings.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.streaming")
+public class StreamingProperties {
+    /**
+     * number of documents mongo returns in one cursor batch
+     */
+    private int batchSize = 500;
+
+    /**
+     * maximum number of documents requested from mongo before the client
+     * consumes them. demand is replenished when 75% of that is consumed.
+     */
+    private int limitRate = 256;
+}
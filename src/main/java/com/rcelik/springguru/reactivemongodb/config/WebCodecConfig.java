@@ -0,0 +1,76 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Registers CBOR and Smile codecs next to JSON, so clients can ask for a
+ * binary format with the Accept header. JSON stays the default.
+ * Customizers are applied to both server codecs and WebClient/WebTestClient.
+ */
+@Configuration
+public class WebCodecConfig {
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * mappers are built from the builder spring boot configures for JSON, so
+     * dates, decimals and modules are written the same way in every format
+     */
+    @Bean
+    CodecCustomizer binaryCodecCustomizer(ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilders) {
+        ObjectMapper cborMapper = mapperBuilders.getObject().factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = mapperBuilders.getObject().factory(new SmileFactory()).build();
+
+        return configurer -> {
+            // cbor is not a default codec, smile is but with its own mapper
+            configurer.customCodecs().register(new CollectingCborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper));
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        };
+    }
+
+    /**
+     * Jackson2CborEncoder only encodes single values, a Flux body fails with
+     * UnsupportedOperationException. Flux bodies are collected and written as
+     * one cbor array, like json writes them when not streaming. The whole
+     * listing is held in memory, large listings should be paged.
+     */
+    static class CollectingCborEncoder extends Jackson2CborEncoder {
+        CollectingCborEncoder(ObjectMapper mapper) {
+            super(mapper);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
@@ -4,7 +4,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import lombok.Builder;
 import lombok.Data;
@@ -12,14 +18,39 @@ import lombok.Data;
 @Data
 @Builder
 @Document
+// beerStyle lookups use the prefix of the style compound indexes, beerName
+// lookups use the prefix of the name/id index which also serves keyset paging.
+// indexes are created by MongoIndexReconciler at startup.
+@CompoundIndexes({
+        @CompoundIndex(name = "beerStyle_price", def = "{'beerStyle': 1, 'price': 1}"),
+        @CompoundIndex(name = "beerStyle_id", def = "{'beerStyle': 1, '_id': 1}"),
+        @CompoundIndex(name = "beerName_id", def = "{'beerName': 1, '_id': 1}")
+})
 public class Beer {
     @Id
     private String id;
+    // text index is named Beer_TextIndex, name matches weigh more than style matches
+    @TextIndexed(weight = 3)
     private String beerName;
+    @TextIndexed
     private String beerStyle;
+    @Indexed(name = "upc")
     private String upc;
     private Integer quantitiyOnHand;
     private BigDecimal price;
     private LocalDateTime createdDate;
     private LocalDateTime updatedDate;
+
+    /**
+     * incremented by every write, used for etags and conditional writes
+     */
+    @Version
+    private Long version;
+
+    /**
+     * relevance of the beer for a text search, only set by search reads and
+     * never stored
+     */
+    @TextScore
+    private Float score;
 }
@@ -0,0 +1,28 @@
+package com.rcelik.springguru.reactivemongodb.domain;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Totals of one beer style, kept up to date with $inc on every beer write so
+ * that they can be read without grouping the beer collection.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+@Document(collection = BeerStyleSummary.COLLECTION)
+public class BeerStyleSummary {
+    public static final String COLLECTION = "beer_style_summary";
+
+    @Id
+    private String beerStyle;
+    private Long count;
+    private Long totalQuantity;
+    private BigDecimal inventoryValue;
+}
@@ -0,0 +1,29 @@
+package com.rcelik.springguru.reactivemongodb.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Number of writes made to a collection through the services. It only grows,
+ * so a listing etag derived from it changes whenever the collection changes.
+ * The counter is incremented after the write, see ChangeCounters. Until the
+ * increment is written, clients holding the listing etag keep getting 304:
+ * for one round trip normally, and for as long as mongo refuses the increment
+ * when it fails.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+@Document(collection = "change_counters")
+public class ChangeCounter {
+    public static final String BEERS = "beer";
+    public static final String CUSTOMERS = "customer";
+
+    @Id
+    private String name;
+    private Long count;
+}
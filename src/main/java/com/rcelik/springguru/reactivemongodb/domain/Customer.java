@@ -3,6 +3,8 @@ package com.rcelik.springguru.reactivemongodb.domain;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -13,10 +15,18 @@ import lombok.Data;
 @AllArgsConstructor
 @Builder
 @Document
+// serves both name lookups and keyset paging sorted by name
+@CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}")
 public class Customer {
     @Id
     private String id;
     private String name;
     private LocalDateTime createdDate;
     private LocalDateTime lastModifiedDate;
+
+    /**
+     * incremented by every write, used for etags and conditional writes
+     */
+    @Version
+    private Long version;
 }
@@ -0,0 +1,125 @@
+package com.rcelik.springguru.reactivemongodb.limit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rcelik.springguru.reactivemongodb.config.ConcurrencyLimitProperties;
+
+/**
+ * Limits how many operations run at the same time, and moves the limit with
+ * the latency of finished operations. Latency is averaged over a long and a
+ * short window. While the recent latency stays within the tolerance of the
+ * long term one the limit grows by its square root. When the recent latency
+ * rises above that, the limit shrinks by the ratio of the two, down to half
+ * of it per sample. Operations over the limit are not queued, they are
+ * rejected.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double MIN_GRADIENT = 0.5;
+    /**
+     * after an overload the long term latency is too high to notice the next
+     * one, it is pulled towards the recent one while it is that much higher
+     */
+    private static final double LONG_RTT_DRIFT = 2.0;
+    private static final double LONG_RTT_DECAY = 0.95;
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // written under the lock of this object, limit is read without it
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+    private double shortRtt;
+    private long samples;
+
+    public AdaptiveConcurrencyLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * takes a permit if the limit is not reached, returns null otherwise. the
+     * permit should be released when the operation finishes.
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * inFlight is the number of operations running when the sampled one
+     * started
+     */
+    synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        // averages are divided by each other, they should not be 0
+        double rtt = Math.max(rttNanos, 1);
+        samples++;
+        if (samples == 1) {
+            longRtt = rtt;
+            shortRtt = rtt;
+        } else {
+            // windows are shorter until enough samples are seen, so the first
+            // ones do not weigh too much
+            longRtt += (rtt - longRtt) / Math.min(samples, properties.getLongWindow());
+            shortRtt += (rtt - shortRtt) / Math.min(samples, properties.getShortWindow());
+        }
+        if (longRtt / shortRtt > LONG_RTT_DRIFT) {
+            longRtt *= LONG_RTT_DECAY;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT,
+                Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (newLimit > estimatedLimit && inFlightAtStart < estimatedLimit / 2) {
+            // the limit was not what held the operation back, so its latency
+            // says nothing about a higher limit
+            return;
+        }
+
+        newLimit = estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        estimatedLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * slot of one running operation, releasing it more than once has no
+     * effect
+     */
+    public class Permit {
+        private final long start;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long start, int inFlightAtStart) {
+            this.start = start;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * frees the slot and samples the latency of the operation
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onSample(System.nanoTime() - start, inFlightAtStart);
+            }
+        }
+    }
+}
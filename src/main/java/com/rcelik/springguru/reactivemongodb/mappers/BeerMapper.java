@@ -1,6 +1,11 @@
 package com.rcelik.springguru.reactivemongodb.mappers;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import com.rcelik.springguru.reactivemongodb.domain.Beer;
 import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
@@ -8,7 +13,34 @@ import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
 @Mapper
 public interface BeerMapper {
 
+    // version is set by mongo writes, a version sent by client would make a new
+    // beer look like an existing one
+    @Mapping(target = "version", ignore = true)
+    // text score is only set by search reads, it is returned next to the beer
+    @Mapping(target = "score", ignore = true)
     Beer beerDTOToBeer(BeerDTO beerDTO);
 
     BeerDTO beerToBeerDTO(Beer beer);
+
+    /**
+     * maps only the given fields of the beer, in the given order. used for
+     * projected reads where the other fields are not loaded.
+     */
+    default Map<String, Object> beerToFieldMap(Beer beer, Set<String> fields) {
+        Map<String, Object> fieldMap = new LinkedHashMap<>();
+        for (String field : fields) {
+            fieldMap.put(field, switch (field) {
+                case "id" -> beer.getId();
+                case "beerName" -> beer.getBeerName();
+                case "beerStyle" -> beer.getBeerStyle();
+                case "upc" -> beer.getUpc();
+                case "quantitiyOnHand" -> beer.getQuantitiyOnHand();
+                case "price" -> beer.getPrice();
+                case "createdDate" -> beer.getCreatedDate();
+                case "updatedDate" -> beer.getUpdatedDate();
+                default -> throw new IllegalArgumentException("Unknown beer field: " + field);
+            });
+        }
+        return fieldMap;
+    }
 }
@@ -0,0 +1,12 @@
+package com.rcelik.springguru.reactivemongodb.mappers;
+
+import org.mapstruct.Mapper;
+
+import com.rcelik.springguru.reactivemongodb.domain.BeerStyleSummary;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleSummaryDTO;
+
+@Mapper
+public interface BeerStyleSummaryMapper {
+
+    BeerStyleSummaryDTO beerStyleSummaryToDTO(BeerStyleSummary beerStyleSummary);
+}
@@ -1,6 +1,11 @@
 package com.rcelik.springguru.reactivemongodb.mappers;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import com.rcelik.springguru.reactivemongodb.domain.Customer;
 import com.rcelik.springguru.reactivemongodb.model.CustomerDTO;
@@ -10,5 +15,26 @@ public interface CustomerMapper {
 
     CustomerDTO customerToCustomerDto(Customer customer);
 
+    // version is set by mongo writes, a version sent by client would make a new
+    // customer look like an existing one
+    @Mapping(target = "version", ignore = true)
     Customer customerDtoToCustomer(CustomerDTO customerDto);
+
+    /**
+     * maps only the given fields of the customer, in the given order. used for
+     * projected reads where the other fields are not loaded.
+     */
+    default Map<String, Object> customerToFieldMap(Customer customer, Set<String> fields) {
+        Map<String, Object> fieldMap = new LinkedHashMap<>();
+        for (String field : fields) {
+            fieldMap.put(field, switch (field) {
+                case "id" -> customer.getId();
+                case "name" -> customer.getName();
+                case "createdDate" -> customer.getCreatedDate();
+                case "lastModifiedDate" -> customer.getLastModifiedDate();
+                default -> throw new IllegalArgumentException("Unknown customer field: " + field);
+            });
+        }
+        return fieldMap;
+    }
 }
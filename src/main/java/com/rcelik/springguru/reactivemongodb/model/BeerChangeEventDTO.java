@@ -0,0 +1,25 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change of a beer document read from mongo change stream.
+ * beer is null for delete events. resumeToken can be sent back to continue
+ * the stream after the event.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BeerChangeEventDTO {
+    private String operationType;
+    private String beerId;
+    private BeerDTO beer;
+    private Instant timestamp;
+    private String resumeToken;
+}
@@ -31,4 +31,5 @@ public class BeerDTO {
     private BigDecimal price;
     private LocalDateTime createdDate;
     private LocalDateTime updatedDate;
+    private Long version;
 }
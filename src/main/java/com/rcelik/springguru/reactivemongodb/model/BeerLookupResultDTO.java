@@ -0,0 +1,20 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of looking up one id of a batch lookup. beer is null when found is
+ * false.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BeerLookupResultDTO {
+    private String id;
+    private boolean found;
+    private BeerDTO beer;
+}
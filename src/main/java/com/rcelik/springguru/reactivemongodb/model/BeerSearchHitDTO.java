@@ -0,0 +1,19 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A beer found by text search with its relevance, higher score is a better
+ * match.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BeerSearchHitDTO {
+    private float score;
+    private BeerDTO beer;
+}
@@ -0,0 +1,26 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inventory statistics of one beer style.
+ * inventoryValue is the sum of price * quantitiyOnHand of the beers.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BeerStyleStatsDTO {
+    private String beerStyle;
+    private long count;
+    private long totalQuantity;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal avgPrice;
+    private BigDecimal inventoryValue;
+}
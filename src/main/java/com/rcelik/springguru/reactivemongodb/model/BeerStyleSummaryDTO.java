@@ -0,0 +1,23 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Incrementally maintained totals of one beer style.
+ * inventoryValue is the sum of price * quantitiyOnHand of the beers.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BeerStyleSummaryDTO {
+    private String beerStyle;
+    private long count;
+    private long totalQuantity;
+    private BigDecimal inventoryValue;
+}
@@ -0,0 +1,21 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of one item of a bulk request.
+ * index is the position of the item in the request, id is set when the item
+ * is saved and error is set when it is not.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkItemResultDTO {
+    private long index;
+    private String id;
+    private String error;
+}
@@ -0,0 +1,17 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a delete by filter.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DeleteResultDTO {
+    private long deletedCount;
+}
@@ -0,0 +1,19 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change of the quantity on hand of a beer, e.g. 3 or -1.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class InventoryAdjustmentDTO {
+    @NotNull
+    private Integer delta;
+}
@@ -0,0 +1,21 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of an inventory adjustment. applied is false when the adjustment is
+ * buffered to be written later, quantityOnHand is only set when it is applied.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class InventoryAdjustmentResultDTO {
+    private String beerId;
+    private int delta;
+    private boolean applied;
+    private Integer quantityOnHand;
+}
@@ -0,0 +1,63 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import lombok.Value;
+
+/**
+ * Position of the last document of a page for keyset (seek) pagination.
+ * Holds the sort field, its value on the last document and the last document
+ * id which is used as tie breaker. The value is null when the last document
+ * has no value for the sort field. Clients only see the opaque encoded form.
+ */
+@Value
+public class KeysetCursor {
+    private static final char SEPARATOR = '\u0000';
+    // value is prefixed so that a null value is not read back as empty text
+    private static final char NULL_MARKER = 'n';
+    private static final char VALUE_MARKER = 'v';
+
+    String sortField;
+    String lastValue;
+    String lastId;
+
+    public static KeysetCursor of(String sortField, String lastValue, String lastId) {
+        return new KeysetCursor(sortField, lastValue, lastId);
+    }
+
+    /**
+     * encodes the cursor as url safe base64 text so it can be sent as query
+     * parameter
+     */
+    public String encode() {
+        String value = lastValue == null ? String.valueOf(NULL_MARKER) : VALUE_MARKER + lastValue;
+        String raw = sortField + SEPARATOR + value + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * decodes the text produced by {@link #encode()}
+     *
+     * @throws IllegalArgumentException if the given text is not a valid cursor
+     */
+    public static KeysetCursor decode(String encoded) {
+        String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        int first = raw.indexOf(SEPARATOR);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first <= 0 || first == last || last == raw.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded);
+        }
+
+        String value = raw.substring(first + 1, last);
+        String lastValue;
+        if (value.length() == 1 && value.charAt(0) == NULL_MARKER) {
+            lastValue = null;
+        } else if (!value.isEmpty() && value.charAt(0) == VALUE_MARKER) {
+            lastValue = value.substring(1);
+        } else {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded);
+        }
+        return new KeysetCursor(raw.substring(0, first), lastValue, raw.substring(last + 1));
+    }
+}
@@ -0,0 +1,35 @@
+package com.rcelik.springguru.reactivemongodb.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset paginated listing.
+ * nextCursor is null when there is no more page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PageDTO<T> {
+    private List<T> content;
+    private String nextCursor;
+
+    /**
+     * builds a page from the documents fetched with limit + 1.
+     * the extra document is only used to understand that a next page exists.
+     */
+    public static <E, T> PageDTO<T> fromSlice(List<E> slice, int limit, Function<E, KeysetCursor> cursorOf,
+            Function<E, T> mapper) {
+        boolean hasNext = slice.size() > limit;
+        List<E> pageItems = hasNext ? slice.subList(0, limit) : slice;
+
+        String nextCursor = hasNext ? cursorOf.apply(pageItems.get(pageItems.size() - 1)).encode() : null;
+        return new PageDTO<>(pageItems.stream().map(mapper).toList(), nextCursor);
+    }
+}
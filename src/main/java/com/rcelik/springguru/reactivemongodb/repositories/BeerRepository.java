@@ -7,7 +7,7 @@ import com.rcelik.springguru.reactivemongodb.domain.Beer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface BeerRepository extends ReactiveMongoRepository<Beer, String> {
+public interface BeerRepository extends ReactiveMongoRepository<Beer, String>, BeerRepositoryCustom {
 
     Mono<Beer> findFirstByBeerName(String beerName);
 
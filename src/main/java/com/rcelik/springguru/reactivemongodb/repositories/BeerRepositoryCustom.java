@@ -0,0 +1,114 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleStatsDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom beer queries that can not be derived from method names.
+ */
+public interface BeerRepositoryCustom {
+    /**
+     * returns at most limit beers that come after the given cursor.
+     * beerStyle and after are optional.
+     */
+    Flux<Beer> findPage(String beerStyle, String sortField, KeysetCursor after, int limit);
+
+    /**
+     * streams all beers, optionally filtered by beerStyle, reading from mongo
+     * cursor batchSize documents at a time
+     */
+    Flux<Beer> streamBeers(String beerStyle, int batchSize);
+
+    /**
+     * lists all beers, or the beers of beerStyle when it is given. decoded with
+     * the entity codec like the other reads when it is enabled.
+     */
+    Flux<Beer> findListing(String beerStyle);
+
+    /**
+     * inserts given beers with one unordered bulk write, so a failing beer does
+     * not stop the others. returns error messages by position of the failed
+     * beers in the given list.
+     */
+    Mono<Map<Integer, String>> insertUnordered(List<Beer> beers);
+
+    /**
+     * sets given fields of the beer and increments its version with a single
+     * findAndModify, returns the beer as it was before the update. other fields
+     * of the document are not touched. when expectedVersion is given the beer is
+     * only updated if it has that version.
+     */
+    Mono<Beer> setFields(String id, Map<String, Object> fields, Long expectedVersion);
+
+    /**
+     * adds delta to the quantity on hand of the beer and increments its version
+     * with a single findAndModify, returns the beer as it was before the update
+     */
+    Mono<Beer> incrementQuantity(String id, int delta);
+
+    /**
+     * adds the deltas to the quantities on hand of the beers by id with one
+     * unordered bulk write. beers that do not exist are skipped. returns the ids
+     * whose update failed with a write error, the others are written. other
+     * errors are passed on, then it is not known which updates are written.
+     */
+    Mono<Set<String>> incrementQuantities(Map<String, Integer> deltas);
+
+    /**
+     * deletes the beer with a single findAndRemove and returns the deleted beer.
+     * when expectedVersion is given the beer is only deleted if it has that
+     * version.
+     */
+    Mono<Beer> removeById(String id, Long expectedVersion);
+
+    /**
+     * deletes all beers of the style and returns the deleted beers with only id
+     * and beerName loaded, so callers can update what they derive from them
+     */
+    Flux<Beer> removeAllByStyle(String beerStyle);
+
+    /**
+     * listens changes of beer collection. beerStyle and resumeToken are optional,
+     * when resumeToken is given the stream continues after that event.
+     */
+    Flux<ChangeStreamEvent<Beer>> watchChanges(String beerStyle, String resumeToken);
+
+    /**
+     * reads beers with only the given fields loaded from mongo, other fields are
+     * null. beerStyle is optional.
+     */
+    Flux<Beer> findProjected(String beerStyle, Set<String> fields);
+
+    /**
+     * reads the beer with only the given fields loaded from mongo, other
+     * fields are null
+     */
+    Mono<Beer> findProjectedById(String id, Set<String> fields);
+
+    /**
+     * groups beers by style in mongo and returns inventory statistics of each
+     * style, sorted by style. beerStyle is optional.
+     */
+    Flux<BeerStyleStatsDTO> styleStats(String beerStyle);
+
+    /**
+     * finds beers whose name or style matches the words of the text using the
+     * text index, best matches first. score of the returned beers is set.
+     */
+    Flux<Beer> search(String text, int limit);
+
+    /**
+     * streams names of all beers, other fields are not read
+     */
+    Flux<String> streamBeerNames(int batchSize);
+}
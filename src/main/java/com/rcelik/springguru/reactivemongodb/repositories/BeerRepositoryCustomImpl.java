@@ -0,0 +1,238 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.rcelik.springguru.reactivemongodb.config.MongoClientProperties;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleStatsDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class BeerRepositoryCustomImpl implements BeerRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoClientProperties mongoClientProperties;
+
+    @Override
+    public Flux<Beer> findPage(String beerStyle, String sortField, KeysetCursor after, int limit) {
+        Query query = KeysetQueries.pageQuery(sortField, after, limit);
+        if (beerStyle != null) {
+            query.addCriteria(Criteria.where("beerStyle").is(beerStyle));
+        }
+        return find(query);
+    }
+
+    @Override
+    public Flux<Beer> streamBeers(String beerStyle, int batchSize) {
+        Query query = new Query().cursorBatchSize(batchSize);
+        if (beerStyle != null) {
+            query.addCriteria(Criteria.where("beerStyle").is(beerStyle));
+        }
+        return find(query);
+    }
+
+    @Override
+    public Flux<Beer> findListing(String beerStyle) {
+        Query query = new Query();
+        if (beerStyle != null) {
+            query.addCriteria(Criteria.where("beerStyle").is(beerStyle));
+        }
+        return find(query);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertUnordered(List<Beer> beers) {
+        return mongoTemplate.bulkOps(BulkMode.UNORDERED, Beer.class)
+                .insert(beers)
+                .execute()
+                .map(result -> Map.<Integer, String>of())
+                // failed writes are reported, the rest of the batch is already written
+                .onErrorResume(error -> writeErrors(error) != null,
+                        error -> Mono.just(toErrorMap(writeErrors(error))));
+    }
+
+    @Override
+    public Mono<Beer> setFields(String id, Map<String, Object> fields, Long expectedVersion) {
+        Update update = new Update();
+        fields.forEach(update::set);
+        update.inc("version", 1);
+
+        // previous version is returned so that callers can tell what is changed
+        return mongoTemplate.findAndModify(IdQueries.versioned(id, expectedVersion), update,
+                FindAndModifyOptions.options().returnNew(false), Beer.class);
+    }
+
+    @Override
+    public Mono<Beer> incrementQuantity(String id, int delta) {
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(id)), quantityIncrement(delta),
+                FindAndModifyOptions.options().returnNew(false), Beer.class);
+    }
+
+    @Override
+    public Mono<Set<String>> incrementQuantities(Map<String, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+
+        // write errors refer to updates by index
+        List<String> ids = new ArrayList<>(deltas.keySet());
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, Beer.class);
+        ids.forEach(id -> bulkOperations.updateOne(Query.query(Criteria.where("id").is(id)),
+                quantityIncrement(deltas.get(id))));
+        return bulkOperations.execute()
+                .map(result -> Set.<String>of())
+                .onErrorResume(error -> writeErrors(error) != null,
+                        error -> Mono.just(writeErrors(error).stream()
+                                .map(writeError -> ids.get(writeError.getIndex()))
+                                .collect(Collectors.toSet())));
+    }
+
+    // delta stays an int so that the quantity is kept as int32
+    private static Update quantityIncrement(int delta) {
+        return new Update().inc("quantitiyOnHand", delta).inc("version", 1);
+    }
+
+    @Override
+    public Mono<Beer> removeById(String id, Long expectedVersion) {
+        return mongoTemplate.findAndRemove(IdQueries.versioned(id, expectedVersion), Beer.class);
+    }
+
+    @Override
+    public Flux<Beer> removeAllByStyle(String beerStyle) {
+        Query query = Query.query(Criteria.where("beerStyle").is(beerStyle));
+        // the matching beers are read and then deleted by id with one deleteMany
+        query.fields().include("beerName");
+        return mongoTemplate.findAllAndRemove(query, Beer.class);
+    }
+
+    @Override
+    public Flux<ChangeStreamEvent<Beer>> watchChanges(String beerStyle, String resumeToken) {
+        var changeStream = mongoTemplate.changeStream(Beer.class)
+                .withOptions(options -> {
+                    // updates only carry changed fields unless full document is asked
+                    options.returnFullDocumentOnUpdate();
+                    if (resumeToken != null) {
+                        options.resumeAfter(new BsonDocument("_data", new BsonString(resumeToken)));
+                    }
+                })
+                .watchCollection(Beer.class);
+
+        if (beerStyle != null) {
+            // criteria is applied to fullDocument, deletes do not have it so they are
+            // not matched by a style filter
+            return changeStream.filter(Criteria.where("beerStyle").is(beerStyle)).listen();
+        }
+        return changeStream.listen();
+    }
+
+    @Override
+    public Flux<Beer> findProjected(String beerStyle, Set<String> fields) {
+        Query query = new Query();
+        if (beerStyle != null) {
+            query.addCriteria(Criteria.where("beerStyle").is(beerStyle));
+        }
+        query.fields().include(fields.toArray(String[]::new));
+        return find(query);
+    }
+
+    @Override
+    public Mono<Beer> findProjectedById(String id, Set<String> fields) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include(fields.toArray(String[]::new));
+        return find(query.limit(1)).next();
+    }
+
+    @Override
+    public Flux<BeerStyleStatsDTO> styleStats(String beerStyle) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (beerStyle != null) {
+            // uses the prefix of beerStyle_price index
+            operations.add(Aggregation.match(Criteria.where("beerStyle").is(beerStyle)));
+        }
+        operations.add(Aggregation.group("beerStyle")
+                .count().as("count")
+                .sum("quantitiyOnHand").as("totalQuantity")
+                .min("price").as("minPrice")
+                .max("price").as("maxPrice")
+                .avg("price").as("avgPrice")
+                .sum(ArithmeticOperators.Multiply.valueOf("price").multiplyBy("quantitiyOnHand"))
+                .as("inventoryValue"));
+        operations.add(Aggregation.project("count", "totalQuantity", "minPrice", "maxPrice", "avgPrice",
+                "inventoryValue").and("beerStyle").previousOperation());
+        operations.add(Aggregation.sort(Sort.by("beerStyle")));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(Beer.class, operations), BeerStyleStatsDTO.class);
+    }
+
+    @Override
+    public Flux<Beer> search(String text, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .sortByScore()
+                .limit(limit);
+        return mongoTemplate.find(query, Beer.class);
+    }
+
+    @Override
+    public Flux<String> streamBeerNames(int batchSize) {
+        Query query = new Query().cursorBatchSize(batchSize);
+        query.fields().include("beerName");
+        return find(query)
+                .mapNotNull(Beer::getBeerName);
+    }
+
+    // list reads are the hot path, they are decoded with BeerCodec unless it is disabled
+    private Flux<Beer> find(Query query) {
+        return mongoClientProperties.isEntityCodecs()
+                ? CodecQueries.find(mongoTemplate, query, Beer.class)
+                : mongoTemplate.find(query, Beer.class);
+    }
+
+    /**
+     * the template translates bulk write failures, e.g. to DuplicateKeyException,
+     * write errors are read from the driver exception they wrap. returns null
+     * when the error is not a bulk write failure.
+     */
+    private static List<BulkWriteError> writeErrors(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException.getWriteErrors();
+            }
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return bulkOperationException.getErrors();
+            }
+        }
+        return null;
+    }
+
+    private static Map<Integer, String> toErrorMap(List<BulkWriteError> errors) {
+        return errors.stream().collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage));
+    }
+}
@@ -0,0 +1,16 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.rcelik.springguru.reactivemongodb.domain.BeerStyleSummary;
+
+import reactor.core.publisher.Flux;
+
+public interface BeerStyleSummaryRepository
+        extends ReactiveMongoRepository<BeerStyleSummary, String>, BeerStyleSummaryRepositoryCustom {
+
+    /**
+     * styles whose beers are all deleted are kept with zero count
+     */
+    Flux<BeerStyleSummary> findByCountGreaterThanOrderByBeerStyle(long count);
+}
@@ -0,0 +1,21 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import java.math.BigDecimal;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Incremental and full updates of beer style summaries.
+ */
+public interface BeerStyleSummaryRepositoryCustom {
+    /**
+     * adds given deltas to the summary of the style with one upsert
+     */
+    Mono<Void> increment(String beerStyle, long count, long quantity, BigDecimal value);
+
+    /**
+     * recomputes all summaries from beer collection and replaces the summary
+     * collection with the result
+     */
+    Mono<Void> rebuild();
+}
@@ -0,0 +1,54 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.BeerStyleSummary;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class BeerStyleSummaryRepositoryCustomImpl implements BeerStyleSummaryRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Void> increment(String beerStyle, long count, long quantity, BigDecimal value) {
+        Update update = new Update()
+                .inc("count", count)
+                .inc("totalQuantity", quantity)
+                .inc("inventoryValue", value);
+
+        return mongoTemplate.upsert(Query.query(Criteria.where("beerStyle").is(beerStyle)), update,
+                BeerStyleSummary.class).then();
+    }
+
+    @Override
+    public Mono<Void> rebuild() {
+        // $out replaces the summary collection at once when the aggregation finishes,
+        // readers see either the old or the new summaries
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.ne("beerStyle", null)),
+                Aggregates.group("$beerStyle",
+                        Accumulators.sum("count", 1L),
+                        Accumulators.sum("totalQuantity", new Document("$toLong", "$quantitiyOnHand")),
+                        Accumulators.sum("inventoryValue",
+                                new Document("$multiply", List.of("$price", "$quantitiyOnHand")))),
+                Aggregates.out(BeerStyleSummary.COLLECTION));
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Beer.class))
+                .flatMap(collection -> Mono.from(collection.aggregate(pipeline).toCollection()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.rcelik.springguru.reactivemongodb.domain.ChangeCounter;
+
+public interface ChangeCounterRepository
+        extends ReactiveMongoRepository<ChangeCounter, String>, ChangeCounterRepositoryCustom {
+}
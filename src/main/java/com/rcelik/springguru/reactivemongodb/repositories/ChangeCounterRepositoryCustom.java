@@ -0,0 +1,13 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Atomic increments of change counters.
+ */
+public interface ChangeCounterRepositoryCustom {
+    /**
+     * increments the counter with one upsert, it is created on first write
+     */
+    Mono<Void> increment(String name);
+}
@@ -0,0 +1,23 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.rcelik.springguru.reactivemongodb.domain.ChangeCounter;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class ChangeCounterRepositoryCustomImpl implements ChangeCounterRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Void> increment(String name) {
+        return mongoTemplate.upsert(Query.query(Criteria.where("name").is(name)), new Update().inc("count", 1L),
+                ChangeCounter.class).then();
+    }
+}
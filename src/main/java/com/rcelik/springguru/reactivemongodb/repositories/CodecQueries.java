@@ -0,0 +1,49 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.reactivestreams.client.FindPublisher;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Runs queries on the driver collection typed with the entity class, so
+ * results are decoded by the entity codec registered in MongoConfig instead of
+ * being read into a Document and mapped by MappingMongoConverter.
+ */
+final class CodecQueries {
+    private CodecQueries() {
+    }
+
+    static <T> Flux<T> find(ReactiveMongoTemplate mongoTemplate, Query query, Class<T> entityClass) {
+        // filter, sort and projection are still mapped with spring so that property
+        // names like id are translated the same way as in mongoTemplate.find
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(entityClass);
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+        Document projection = queryMapper.getMappedFields(query.getFieldsObject(), entity);
+
+        // execute translates driver exceptions to DataAccessException like the other
+        // template reads
+        return mongoTemplate.execute(entityClass, collection -> {
+            FindPublisher<T> publisher = collection.withDocumentClass(entityClass)
+                    .find(filter)
+                    .sort(sort)
+                    .projection(projection);
+            if (query.getLimit() > 0) {
+                publisher = publisher.limit(query.getLimit());
+            }
+            Integer batchSize = query.getMeta().getCursorBatchSize();
+            if (batchSize != null) {
+                publisher = publisher.batchSize(batchSize);
+            }
+            return publisher;
+        });
+    }
+}
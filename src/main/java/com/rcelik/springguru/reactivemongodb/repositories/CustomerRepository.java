@@ -5,6 +5,6 @@ import com.rcelik.springguru.reactivemongodb.domain.Customer;
 
 import reactor.core.publisher.Flux;
 
-public interface CustomerRepository extends ReactiveMongoRepository<Customer, String> {
+public interface CustomerRepository extends ReactiveMongoRepository<Customer, String>, CustomerRepositoryCustom {
     Flux<Customer> findByName(String name);
 }
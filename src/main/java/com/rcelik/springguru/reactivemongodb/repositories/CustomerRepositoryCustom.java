@@ -0,0 +1,52 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import java.util.Set;
+
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom customer queries that can not be derived from method names.
+ */
+public interface CustomerRepositoryCustom {
+    /**
+     * returns at most limit customers that come after the given cursor.
+     * after is optional.
+     */
+    Flux<Customer> findPage(String sortField, KeysetCursor after, int limit);
+
+    /**
+     * reads customers with only the given fields loaded from mongo, other fields are
+     * null.
+     */
+    Flux<Customer> findProjected(Set<String> fields);
+
+    /**
+     * reads the customer with only the given fields loaded from mongo, other
+     * fields are null
+     */
+    Mono<Customer> findProjectedById(String id, Set<String> fields);
+
+    /**
+     * sets the name of the customer and increments its version with a single
+     * findAndModify, returns the updated customer. when expectedVersion is
+     * given the customer is only updated if it has that version.
+     */
+    Mono<Customer> setName(String id, String name, Long expectedVersion);
+
+    /**
+     * deletes the customer with a single deleteOne and returns the number of
+     * deleted customers, 0 when there is no such customer. when expectedVersion
+     * is given the customer is only deleted if it has that version.
+     */
+    Mono<Long> deleteOneById(String id, Long expectedVersion);
+
+    /**
+     * deletes all customers with the name with a single deleteMany and returns
+     * the number of deleted customers
+     */
+    Mono<Long> deleteManyByName(String name);
+}
@@ -0,0 +1,76 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.client.result.DeleteResult;
+import com.rcelik.springguru.reactivemongodb.config.MongoClientProperties;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class CustomerRepositoryCustomImpl implements CustomerRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoClientProperties mongoClientProperties;
+
+    @Override
+    public Flux<Customer> findPage(String sortField, KeysetCursor after, int limit) {
+        return find(KeysetQueries.pageQuery(sortField, after, limit));
+    }
+
+    @Override
+    public Flux<Customer> findProjected(Set<String> fields) {
+        Query query = new Query();
+        query.fields().include(fields.toArray(String[]::new));
+        return find(query);
+    }
+
+    @Override
+    public Mono<Customer> findProjectedById(String id, Set<String> fields) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include(fields.toArray(String[]::new));
+        return find(query.limit(1)).next();
+    }
+
+    @Override
+    public Mono<Customer> setName(String id, String name, Long expectedVersion) {
+        Update update = new Update()
+                .set("name", name)
+                .set("lastModifiedDate", LocalDateTime.now())
+                .inc("version", 1);
+
+        return mongoTemplate.findAndModify(IdQueries.versioned(id, expectedVersion), update,
+                FindAndModifyOptions.options().returnNew(true), Customer.class);
+    }
+
+    @Override
+    public Mono<Long> deleteOneById(String id, Long expectedVersion) {
+        // remove with an id query is sent as a single deleteOne
+        return mongoTemplate.remove(IdQueries.versioned(id, expectedVersion), Customer.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Long> deleteManyByName(String name) {
+        return mongoTemplate.remove(Query.query(Criteria.where("name").is(name)), Customer.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    // list reads are decoded with CustomerCodec unless it is disabled
+    private Flux<Customer> find(Query query) {
+        return mongoClientProperties.isEntityCodecs()
+                ? CodecQueries.find(mongoTemplate, query, Customer.class)
+                : mongoTemplate.find(query, Customer.class);
+    }
+}
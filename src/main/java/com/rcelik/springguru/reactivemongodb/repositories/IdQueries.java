@@ -0,0 +1,27 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Builds queries for conditional writes by id.
+ */
+final class IdQueries {
+    private IdQueries() {
+    }
+
+    /**
+     * matches the document with the id, and with the version when
+     * expectedVersion is given. documents written before versioning have no
+     * version field, they are matched as version 0.
+     */
+    static Query versioned(String id, Long expectedVersion) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null && expectedVersion == 0L) {
+            criteria.and("version").in(0L, null);
+        } else if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        return Query.query(criteria);
+    }
+}
@@ -0,0 +1,52 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+
+/**
+ * Builds keyset (seek) pagination queries.
+ * Instead of skipping already returned documents, the query starts right after
+ * the last returned document so every page costs the same with an index on the
+ * sort field.
+ */
+final class KeysetQueries {
+    static final String ID_FIELD = "id";
+
+    private KeysetQueries() {
+    }
+
+    static Query pageQuery(String sortField, KeysetCursor after, int limit) {
+        Query query = new Query();
+
+        if (after != null) {
+            if (ID_FIELD.equals(sortField)) {
+                query.addCriteria(Criteria.where(ID_FIELD).gt(after.getLastId()));
+            } else {
+                query.addCriteria(after(sortField, after));
+            }
+        }
+
+        Sort sort = ID_FIELD.equals(sortField)
+                ? Sort.by(ID_FIELD)
+                : Sort.by(sortField).and(Sort.by(ID_FIELD));
+
+        return query.with(sort).limit(limit);
+    }
+
+    private static Criteria after(String sortField, KeysetCursor after) {
+        // id is used as tie breaker for the documents that have same sort value.
+        // null and missing values sort before all others, null also matches missing
+        if (after.getLastValue() == null) {
+            return new Criteria().orOperator(
+                    Criteria.where(sortField).is(null).and(ID_FIELD).gt(after.getLastId()),
+                    Criteria.where(sortField).ne(null));
+        }
+        // $gt only matches values of the same type, so null values are not matched again
+        return new Criteria().orOperator(
+                Criteria.where(sortField).gt(after.getLastValue()),
+                Criteria.where(sortField).is(after.getLastValue()).and(ID_FIELD).gt(after.getLastId()));
+    }
+}
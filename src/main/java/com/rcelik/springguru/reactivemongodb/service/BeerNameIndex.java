@@ -0,0 +1,126 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.rcelik.springguru.reactivemongodb.config.StreamingProperties;
+import com.rcelik.springguru.reactivemongodb.repositories.BeerRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * In memory sorted index of beer names used for prefix autocomplete.
+ * Names are kept in a skip list ordered by their lower case form, so a lookup
+ * is a range scan of at most limit entries without going to mongo.
+ * It is loaded after startup and BeerServiceImpl reports every beer write to
+ * it. Writes that happen while it is loading are applied to both the old and
+ * the loading index. When loads overlap only the latest one receives writes
+ * and replaces the index.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BeerNameIndex {
+    // lower case name and original name are joined, so names that differ only in
+    // case are both kept and still sorted case insensitively
+    private static final char SEPARATOR = '\u0000';
+
+    private final BeerRepository beerRepository;
+    private final StreamingProperties streamingProperties;
+
+    // values are the number of beers with the name
+    private volatile ConcurrentSkipListMap<String, Integer> names = new ConcurrentSkipListMap<>();
+    private final AtomicReference<ConcurrentSkipListMap<String, Integer>> loadingNames = new AtomicReference<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload().subscribe(
+                count -> log.info("Loaded {} beer names for autocomplete", count),
+                error -> log.error("Loading beer names failed", error));
+    }
+
+    /**
+     * reads all beer names from mongo and replaces the index, returns number of
+     * loaded names
+     */
+    public Mono<Integer> reload() {
+        return Mono.defer(() -> {
+            ConcurrentSkipListMap<String, Integer> loaded = new ConcurrentSkipListMap<>();
+            loadingNames.set(loaded);
+            return beerRepository.streamBeerNames(streamingProperties.getBatchSize())
+                    .doOnNext(name -> increment(loaded, name))
+                    .then(Mono.fromCallable(() -> {
+                        // a later load started meanwhile gets the writes, it replaces the index
+                        if (loadingNames.compareAndSet(loaded, null)) {
+                            names = loaded;
+                        }
+                        return loaded.size();
+                    }))
+                    .doOnError(error -> loadingNames.compareAndSet(loaded, null));
+        });
+    }
+
+    public void add(String name) {
+        if (name == null) {
+            return;
+        }
+        increment(names, name);
+        ConcurrentSkipListMap<String, Integer> loading = loadingNames.get();
+        if (loading != null) {
+            increment(loading, name);
+        }
+    }
+
+    public void remove(String name) {
+        if (name == null) {
+            return;
+        }
+        decrement(names, name);
+        ConcurrentSkipListMap<String, Integer> loading = loadingNames.get();
+        if (loading != null) {
+            decrement(loading, name);
+        }
+    }
+
+    /**
+     * returns at most limit names starting with the prefix, ignoring case,
+     * sorted alphabetically
+     */
+    public List<String> complete(String prefix, int limit) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        // every key starting with the prefix is smaller than prefix + max char
+        Map<String, Integer> matches = names.subMap(from, true, from + Character.MAX_VALUE, false);
+
+        List<String> completions = new ArrayList<>(Math.min(limit, matches.size()));
+        for (String key : matches.keySet()) {
+            if (completions.size() == limit) {
+                break;
+            }
+            completions.add(key.substring(key.indexOf(SEPARATOR) + 1));
+        }
+        return completions;
+    }
+
+    private static void increment(ConcurrentSkipListMap<String, Integer> index, String name) {
+        index.merge(key(name), 1, Integer::sum);
+    }
+
+    private static void decrement(ConcurrentSkipListMap<String, Integer> index, String name) {
+        // entry is removed when the last beer with the name is gone
+        index.computeIfPresent(key(name), (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT) + SEPARATOR + name;
+    }
+}
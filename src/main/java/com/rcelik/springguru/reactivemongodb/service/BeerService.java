@@ -1,25 +1,156 @@
 package com.rcelik.springguru.reactivemongodb.service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.rcelik.springguru.reactivemongodb.model.BeerChangeEventDTO;
 import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerLookupResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerSearchHitDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleStatsDTO;
+import com.rcelik.springguru.reactivemongodb.model.BulkItemResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.InventoryAdjustmentResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+import com.rcelik.springguru.reactivemongodb.model.PageDTO;
 
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
 public interface BeerService {
+    /**
+     * fields that beer pages can be sorted by
+     */
+    Set<String> PAGE_SORT_FIELDS = Set.of("id", "beerName");
+
+    /**
+     * fields that can be selected with projected reads
+     */
+    Set<String> PROJECTABLE_FIELDS = Set.of("id", "beerName", "beerStyle", "upc", "quantitiyOnHand", "price",
+            "createdDate", "updatedDate");
+
 
     Mono<BeerDTO> saveBeer(Mono<BeerDTO> beer);
 
     Mono<BeerDTO> saveBeer(BeerDTO beerDTO);
 
+    /**
+     * validates and saves given beers with chunked bulk writes.
+     * returns one result per beer in the order they are given.
+     */
+    Flux<BulkItemResultDTO> saveBeers(Flux<BeerDTO> beers);
+
     Mono<BeerDTO> getBeer(String beerId);
 
+    /**
+     * reads the beers with one query and returns one result per given id, in
+     * the given order. ids that are not found are marked.
+     */
+    Flux<BeerLookupResultDTO> getBeers(List<String> beerIds);
+
     Flux<BeerDTO> listBeers();
 
-    Mono<BeerDTO> updateBeer(String id, BeerDTO beerDTO);
+    /**
+     * lists beers with only the given fields. beerStyle is optional.
+     */
+    Flux<Map<String, Object>> listBeers(String beerStyle, Set<String> fields);
+
+    /**
+     * returns the beer with only the given fields
+     */
+    Mono<Map<String, Object>> getBeer(String beerId, Set<String> fields);
+
+    /**
+     * streams beers as they are read from the mongo cursor. beerStyle is
+     * optional.
+     */
+    Flux<BeerDTO> streamBeers(String beerStyle);
+
+    /**
+     * streams changes of beers as they happen. beerStyle and resumeToken are
+     * optional.
+     */
+    Flux<BeerChangeEventDTO> watchBeerChanges(String beerStyle, String resumeToken);
+
+    /**
+     * returns one page of beers sorted by sortField, starting after the given
+     * cursor. beerStyle and after are optional.
+     */
+    Mono<PageDTO<BeerDTO>> listBeersPage(String beerStyle, String sortField, KeysetCursor after, int limit);
+
+    /**
+     * returns at most limit beers whose name or style matches the words of the
+     * text, best matches first
+     */
+    Flux<BeerSearchHitDTO> searchBeers(String text, int limit);
+
+    /**
+     * returns at most limit beer names starting with the prefix, ignoring case.
+     * names are read from memory, not from mongo.
+     */
+    Mono<List<String>> autocompleteBeerNames(String prefix, int limit);
+
+    /**
+     * returns inventory statistics per beer style computed by mongo.
+     * beerStyle is optional.
+     */
+    Flux<BeerStyleStatsDTO> getStyleStats(String beerStyle);
+
+    default Mono<BeerDTO> updateBeer(String id, BeerDTO beerDTO) {
+        return updateBeer(id, beerDTO, null);
+    }
+
+    /**
+     * replaces the beer if it still has expectedVersion, expectedVersion is
+     * optional. fails with OptimisticLockingFailureException when the beer has
+     * another version.
+     */
+    Mono<BeerDTO> updateBeer(String id, BeerDTO beerDTO, Long expectedVersion);
+
+    default Mono<BeerDTO> patchBeer(String id, BeerDTO beerDTO) {
+        return patchBeer(id, beerDTO, null);
+    }
+
+    /**
+     * sets the given fields if the beer still has expectedVersion,
+     * expectedVersion is optional. fails with OptimisticLockingFailureException
+     * when the beer has another version.
+     */
+    Mono<BeerDTO> patchBeer(String id, BeerDTO beerDTO, Long expectedVersion);
+
+    /**
+     * deletes the beer in a single round trip, emits false when there is no
+     * such beer
+     */
+    default Mono<Boolean> deleteBeer(String id) {
+        return deleteBeer(id, null);
+    }
+
+    /**
+     * deletes the beer if it still has expectedVersion, expectedVersion is
+     * optional. fails with OptimisticLockingFailureException when the beer has
+     * another version.
+     */
+    Mono<Boolean> deleteBeer(String id, Long expectedVersion);
+
+    /**
+     * adds delta to the quantity on hand of the beer atomically, without
+     * reading it first. when write-behind is enabled the adjustment is only
+     * buffered and applied is false in the result. completes empty when there
+     * is no such beer.
+     */
+    Mono<InventoryAdjustmentResultDTO> adjustInventory(String id, int delta);
 
-    Mono<BeerDTO> patchBeer(String id, BeerDTO beerDTO);
+    /**
+     * deletes all beers of the style and returns how many are deleted
+     */
+    Mono<Long> deleteBeersByStyle(String beerStyle);
 
-    Mono<Void> deleteBeer(String id);
+    /**
+     * number of writes made to beers so far, it changes whenever beers are
+     * created, updated or deleted
+     */
+    Mono<Long> getBeersChangeCount();
 
     Mono<BeerDTO> findFirstBeerByName(String beerName);
 
@@ -1,11 +1,45 @@
 package com.rcelik.springguru.reactivemongodb.service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
 
+import com.rcelik.springguru.reactivemongodb.cache.BatchLoader;
+import com.rcelik.springguru.reactivemongodb.cache.ReactiveCache;
+import com.rcelik.springguru.reactivemongodb.cache.SingleFlight;
+import com.rcelik.springguru.reactivemongodb.config.BulkProperties;
+import com.rcelik.springguru.reactivemongodb.config.ChangeStreamProperties;
+import com.rcelik.springguru.reactivemongodb.config.StreamingProperties;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.ChangeCounter;
 import com.rcelik.springguru.reactivemongodb.mappers.BeerMapper;
+import com.rcelik.springguru.reactivemongodb.model.BeerChangeEventDTO;
 import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerLookupResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerSearchHitDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleStatsDTO;
+import com.rcelik.springguru.reactivemongodb.model.BulkItemResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.InventoryAdjustmentResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+import com.rcelik.springguru.reactivemongodb.model.PageDTO;
 import com.rcelik.springguru.reactivemongodb.repositories.BeerRepository;
+import com.rcelik.springguru.reactivemongodb.repositories.ChangeCounterRepository;
 
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
@@ -16,71 +50,367 @@ import reactor.core.publisher.Mono;
 public class BeerServiceImpl implements BeerService {
     private final BeerMapper beerMapper;
     private final BeerRepository beerRepository;
+    private final StreamingProperties streamingProperties;
+    private final BulkProperties bulkProperties;
+    private final Validator validator;
+    private final ReactiveCache<String, Beer> beerCache;
+    private final ChangeStreamProperties changeStreamProperties;
+    private final BeerStyleSummaryService styleSummaryService;
+    private final BeerNameIndex beerNameIndex;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final ChangeCounters changeCounters;
+    private final InventoryWriteBehind inventoryWriteBehind;
+    // injected by name, see SingleFlightConfig
+    private final SingleFlight<String, Beer> beerLookups;
+    private final SingleFlight<String, Beer> beerStyleLookups;
+    private final BatchLoader<String, Beer> beerBatchLoader;
 
     @Override
     public Mono<BeerDTO> saveBeer(Mono<BeerDTO> beer) {
         return beer.map(beerMapper::beerDTOToBeer)
                 .flatMap(beerRepository::save)
+                .flatMap(savedBeer -> styleSummaryService.beerAdded(savedBeer).thenReturn(savedBeer))
+                .flatMap(savedBeer -> beersChanged().thenReturn(savedBeer))
+                .doOnNext(savedBeer -> beerNameIndex.add(savedBeer.getBeerName()))
+                .doOnNext(savedBeer -> beerCache.invalidate(savedBeer.getId()))
                 .map(beerMapper::beerToBeerDTO);
     }
 
+    @Override
+    public Flux<BulkItemResultDTO> saveBeers(Flux<BeerDTO> beers) {
+        return beers.index()
+                .map(indexedBeer -> toBulkItem(indexedBeer.getT1(), indexedBeer.getT2()))
+                .buffer(bulkProperties.getChunkSize())
+                // chunks are written in parallel but results are emitted in request order
+                .flatMapSequential(this::writeChunk, bulkProperties.getConcurrency())
+                .flatMapIterable(Function.identity());
+    }
+
+    private BulkItem toBulkItem(long index, BeerDTO beerDTO) {
+        Errors errors = new BeanPropertyBindingResult(beerDTO, "beerDto");
+        validator.validate(beerDTO, errors);
+        if (errors.hasErrors()) {
+            String error = errors.getFieldErrors().stream()
+                    .map(fieldError -> fieldError.getField() + " " + fieldError.getDefaultMessage())
+                    .collect(Collectors.joining(", "));
+            return new BulkItem(index, null, error);
+        }
+
+        // ids are generated here so that they can be reported per item
+        Beer beer = beerMapper.beerDTOToBeer(beerDTO);
+        beer.setId(ObjectId.get().toHexString());
+        // bulk inserts do not initialize the version like save does
+        beer.setVersion(0L);
+        return new BulkItem(index, beer, null);
+    }
+
+    private Mono<List<BulkItemResultDTO>> writeChunk(List<BulkItem> chunk) {
+        List<Beer> validBeers = chunk.stream()
+                .filter(item -> item.beer() != null)
+                .map(BulkItem::beer)
+                .toList();
+
+        Mono<Map<Integer, String>> writeErrors = validBeers.isEmpty()
+                ? Mono.just(Map.of())
+                : beerRepository.insertUnordered(validBeers);
+
+        return writeErrors.flatMap(errorsByPosition -> {
+            List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+            List<Beer> savedBeers = new ArrayList<>(validBeers.size());
+            int position = 0;
+            for (BulkItem item : chunk) {
+                if (item.beer() == null) {
+                    results.add(new BulkItemResultDTO(item.index(), null, item.error()));
+                    continue;
+                }
+
+                String writeError = errorsByPosition.get(position++);
+                if (writeError == null) {
+                    savedBeers.add(item.beer());
+                    results.add(new BulkItemResultDTO(item.index(), item.beer().getId(), null));
+                } else {
+                    results.add(new BulkItemResultDTO(item.index(), null, writeError));
+                }
+            }
+            savedBeers.forEach(savedBeer -> beerNameIndex.add(savedBeer.getBeerName()));
+            return styleSummaryService.beersAdded(savedBeers)
+                    .then(savedBeers.isEmpty() ? Mono.empty() : beersChanged())
+                    .thenReturn(results);
+        });
+    }
+
+    /**
+     * an item of a bulk request, either beer or validation error is set
+     */
+    private record BulkItem(long index, Beer beer, String error) {
+    }
+
     @Override
     public Mono<BeerDTO> getBeer(String beerId) {
-        return beerRepository.findById(beerId).map(beerMapper::beerToBeerDTO);
+        // cache misses of the same id running at the same time share one query, misses
+        // of different ids within the batch window are read with one findAllById
+        return beerCache.get(beerId, id -> beerLookups.mono(id, beerBatchLoader::load))
+                .map(beerMapper::beerToBeerDTO);
+    }
+
+    @Override
+    public Flux<BeerLookupResultDTO> getBeers(List<String> beerIds) {
+        return beerRepository.findAllById(new LinkedHashSet<>(beerIds)) // single $in query
+                .collectMap(Beer::getId)
+                .flatMapIterable(found -> beerIds.stream()
+                        .map(id -> found.containsKey(id)
+                                ? new BeerLookupResultDTO(id, true, beerMapper.beerToBeerDTO(found.get(id)))
+                                : new BeerLookupResultDTO(id, false, null))
+                        .toList());
     }
 
     @Override
     public Mono<BeerDTO> saveBeer(BeerDTO beerDTO) {
-        return beerRepository.save(beerMapper.beerDTOToBeer(beerDTO)).map(beerMapper::beerToBeerDTO);
+        return beerRepository.save(beerMapper.beerDTOToBeer(beerDTO))
+                .flatMap(savedBeer -> styleSummaryService.beerAdded(savedBeer).thenReturn(savedBeer))
+                .flatMap(savedBeer -> beersChanged().thenReturn(savedBeer))
+                .doOnNext(savedBeer -> beerNameIndex.add(savedBeer.getBeerName()))
+                .doOnNext(savedBeer -> beerCache.invalidate(savedBeer.getId()))
+                .map(beerMapper::beerToBeerDTO);
     }
 
     @Override
     public Flux<BeerDTO> listBeers() {
-        return beerRepository.findAll().map(beerMapper::beerToBeerDTO);
-    }
-
-    @Override
-    public Mono<BeerDTO> updateBeer(String id, BeerDTO beerDTO) {
-        return beerRepository.findById(id)
-                .map(foundBeer -> {
-                    foundBeer.setBeerName(beerDTO.getBeerName());
-                    foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-                    foundBeer.setPrice(beerDTO.getPrice());
-                    foundBeer.setQuantitiyOnHand(beerDTO.getQuantitiyOnHand());
-                    foundBeer.setUpc(beerDTO.getUpc());
-                    return foundBeer;
-                }) // updating found beer with new one
-                .flatMap(beerRepository::save) // wrapping Beer with Mono then saving it to database
-                .map(beerMapper::beerToBeerDTO); // mapping Mono<Beer> to Mono<BeerDTO>
-    }
-
-    @Override
-    public Mono<BeerDTO> patchBeer(String id, BeerDTO beerDTO) {
-        return beerRepository.findById(id)
-                .map(foundBeer -> {
-                    if (StringUtils.hasText(beerDTO.getBeerName())) {
-                        foundBeer.setBeerName(beerDTO.getBeerName());
-                    }
-                    if (StringUtils.hasText(beerDTO.getBeerStyle())) {
-                        foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-                    }
-                    if (StringUtils.hasText(beerDTO.getUpc())) {
-                        foundBeer.setUpc(beerDTO.getUpc());
-                    }
-                    if (beerDTO.getPrice() != null) {
-                        foundBeer.setPrice(beerDTO.getPrice());
-                    }
-                    if (beerDTO.getQuantitiyOnHand() != null) {
-                        foundBeer.setQuantitiyOnHand(beerDTO.getQuantitiyOnHand());
-                    }
-                    return foundBeer;
-                }).flatMap(beerRepository::save)
+        return beerRepository.findListing(null).map(beerMapper::beerToBeerDTO);
+    }
+
+    @Override
+    public Flux<Map<String, Object>> listBeers(String beerStyle, Set<String> fields) {
+        return beerRepository.findProjected(beerStyle, fields)
+                .map(beer -> beerMapper.beerToFieldMap(beer, fields));
+    }
+
+    @Override
+    public Mono<Map<String, Object>> getBeer(String beerId, Set<String> fields) {
+        // projected reads are not cached, cache holds whole beers
+        return beerRepository.findProjectedById(beerId, fields)
+                .map(beer -> beerMapper.beerToFieldMap(beer, fields));
+    }
+
+    @Override
+    public Flux<BeerDTO> streamBeers(String beerStyle) {
+        // limitRate keeps demand to mongo bounded by what the client consumes
+        return beerRepository.streamBeers(beerStyle, streamingProperties.getBatchSize())
+                .limitRate(streamingProperties.getLimitRate())
                 .map(beerMapper::beerToBeerDTO);
     }
 
     @Override
-    public Mono<Void> deleteBeer(String id) {
-        return beerRepository.deleteById(id);
+    public Flux<BeerChangeEventDTO> watchBeerChanges(String beerStyle, String resumeToken) {
+        // a subscriber that can not keep up fails instead of holding events without
+        // limit, it can reconnect with the resume token of the last event it got
+        return beerRepository.watchChanges(beerStyle, resumeToken)
+                .map(this::toChangeEvent)
+                .onBackpressureBuffer(changeStreamProperties.getBufferSize());
+    }
+
+    private BeerChangeEventDTO toChangeEvent(ChangeStreamEvent<Beer> event) {
+        Beer beer = event.getBody();
+        BsonValue documentKey = event.getRaw() == null || event.getRaw().getDocumentKey() == null
+                ? null
+                : event.getRaw().getDocumentKey().get("_id");
+        BsonValue resumeToken = event.getResumeToken();
+
+        return BeerChangeEventDTO.builder()
+                .operationType(event.getOperationType() == null ? null : event.getOperationType().getValue())
+                .beerId(documentKey != null && documentKey.isObjectId()
+                        ? documentKey.asObjectId().getValue().toHexString()
+                        : beer != null ? beer.getId() : null)
+                .beer(beer == null ? null : beerMapper.beerToBeerDTO(beer))
+                .timestamp(event.getTimestamp())
+                .resumeToken(resumeToken == null ? null : resumeToken.asDocument().getString("_data").getValue())
+                .build();
+    }
+
+    @Override
+    public Mono<PageDTO<BeerDTO>> listBeersPage(String beerStyle, String sortField, KeysetCursor after, int limit) {
+        // one more beer is fetched to understand whether there is a next page
+        return beerRepository.findPage(beerStyle, sortField, after, limit + 1)
+                .collectList()
+                .map(beers -> PageDTO.fromSlice(beers, limit,
+                        beer -> KeysetCursor.of(sortField, sortValue(beer, sortField), beer.getId()),
+                        beerMapper::beerToBeerDTO));
+    }
+
+    private static String sortValue(Beer beer, String sortField) {
+        return "beerName".equals(sortField) ? beer.getBeerName() : beer.getId();
+    }
+
+    @Override
+    public Flux<BeerSearchHitDTO> searchBeers(String text, int limit) {
+        return beerRepository.search(text, limit)
+                .map(beer -> new BeerSearchHitDTO(beer.getScore() == null ? 0 : beer.getScore(),
+                        beerMapper.beerToBeerDTO(beer)));
+    }
+
+    @Override
+    public Mono<List<String>> autocompleteBeerNames(String prefix, int limit) {
+        return Mono.fromSupplier(() -> beerNameIndex.complete(prefix, limit));
+    }
+
+    @Override
+    public Flux<BeerStyleStatsDTO> getStyleStats(String beerStyle) {
+        return beerRepository.styleStats(beerStyle);
+    }
+
+    @Override
+    public Mono<BeerDTO> updateBeer(String id, BeerDTO beerDTO, Long expectedVersion) {
+        // all updatable fields are replaced, the same as saving the found beer
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("beerName", beerDTO.getBeerName());
+        fields.put("beerStyle", beerDTO.getBeerStyle());
+        fields.put("price", beerDTO.getPrice());
+        fields.put("quantitiyOnHand", beerDTO.getQuantitiyOnHand());
+        fields.put("upc", beerDTO.getUpc());
+
+        return setFields(id, fields, expectedVersion).map(beerMapper::beerToBeerDTO); // mapping Mono<Beer> to Mono<BeerDTO>
+    }
+
+    @Override
+    public Mono<BeerDTO> patchBeer(String id, BeerDTO beerDTO, Long expectedVersion) {
+        // only given fields are set so concurrent patches of other fields are not lost
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (StringUtils.hasText(beerDTO.getBeerName())) {
+            fields.put("beerName", beerDTO.getBeerName());
+        }
+        if (StringUtils.hasText(beerDTO.getBeerStyle())) {
+            fields.put("beerStyle", beerDTO.getBeerStyle());
+        }
+        if (StringUtils.hasText(beerDTO.getUpc())) {
+            fields.put("upc", beerDTO.getUpc());
+        }
+        if (beerDTO.getPrice() != null) {
+            fields.put("price", beerDTO.getPrice());
+        }
+        if (beerDTO.getQuantitiyOnHand() != null) {
+            fields.put("quantitiyOnHand", beerDTO.getQuantitiyOnHand());
+        }
+
+        if (fields.isEmpty()) {
+            // mongo rejects an empty $set, nothing to change anyway
+            return getBeer(id)
+                    .flatMap(foundBeer -> expectedVersion == null || expectedVersion.equals(versionOf(foundBeer))
+                            ? Mono.just(foundBeer)
+                            : Mono.error(versionConflict(id)));
+        }
+        return setFields(id, fields, expectedVersion).map(beerMapper::beerToBeerDTO);
+    }
+
+    /**
+     * $set in single round trip, returns updated beer. style summary is moved
+     * by the difference of the previous and the updated beer.
+     */
+    private Mono<Beer> setFields(String id, Map<String, Object> fields, Long expectedVersion) {
+        return beerRepository.setFields(id, fields, expectedVersion)
+                .switchIfEmpty(Mono.defer(() -> failIfExists(id, expectedVersion)))
+                .flatMap(previousBeer -> beersChanged().thenReturn(previousBeer))
+                .flatMap(previousBeer -> {
+                    Beer updatedBeer = withFields(previousBeer, fields);
+                    beerNameIndex.remove(previousBeer.getBeerName());
+                    beerNameIndex.add(updatedBeer.getBeerName());
+                    return styleSummaryService.beerChanged(previousBeer, updatedBeer).thenReturn(updatedBeer);
+                })
+                .doOnTerminate(() -> beerCache.invalidate(id));
+    }
+
+    @Override
+    public Mono<InventoryAdjustmentResultDTO> adjustInventory(String id, int delta) {
+        if (inventoryWriteBehind.isEnabled()) {
+            // existence is checked with the cached beer, adjustments of a beer deleted
+            // before they are flushed match nothing and are dropped
+            return getBeer(id)
+                    .map(beerDTO -> {
+                        inventoryWriteBehind.add(id, delta);
+                        return new InventoryAdjustmentResultDTO(id, delta, false, null);
+                    });
+        }
+
+        // $inc in single round trip, concurrent adjustments of the same beer are all kept
+        return beerRepository.incrementQuantity(id, delta)
+                .flatMap(previousBeer -> beersChanged().thenReturn(previousBeer))
+                .flatMap(previousBeer -> {
+                    int previousQuantity = previousBeer.getQuantitiyOnHand() == null
+                            ? 0
+                            : previousBeer.getQuantitiyOnHand();
+                    Beer updatedBeer = withFields(previousBeer, Map.of("quantitiyOnHand", previousQuantity + delta));
+                    return styleSummaryService.beerChanged(previousBeer, updatedBeer).thenReturn(updatedBeer);
+                })
+                .map(updatedBeer -> new InventoryAdjustmentResultDTO(id, delta, true,
+                        updatedBeer.getQuantitiyOnHand()))
+                .doOnTerminate(() -> beerCache.invalidate(id));
+    }
+
+    private static Beer withFields(Beer beer, Map<String, Object> fields) {
+        return Beer.builder()
+                .id(beer.getId())
+                .beerName((String) fields.getOrDefault("beerName", beer.getBeerName()))
+                .beerStyle((String) fields.getOrDefault("beerStyle", beer.getBeerStyle()))
+                .upc((String) fields.getOrDefault("upc", beer.getUpc()))
+                .quantitiyOnHand((Integer) fields.getOrDefault("quantitiyOnHand", beer.getQuantitiyOnHand()))
+                .price((BigDecimal) fields.getOrDefault("price", beer.getPrice()))
+                .createdDate(beer.getCreatedDate())
+                .updatedDate(beer.getUpdatedDate())
+                .version(beer.getVersion() == null ? 1L : beer.getVersion() + 1)
+                .build();
+    }
+
+    /**
+     * a conditional write that matched nothing either has no beer or a beer
+     * with another version, only the latter is a conflict
+     */
+    private <T> Mono<T> failIfExists(String id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return beerRepository.existsById(id)
+                .flatMap(exists -> exists ? Mono.<T>error(versionConflict(id)) : Mono.<T>empty());
+    }
+
+    private static OptimisticLockingFailureException versionConflict(String id) {
+        return new OptimisticLockingFailureException("beer " + id + " has another version");
+    }
+
+    private static Long versionOf(BeerDTO beerDTO) {
+        // beers written before versioning have no version
+        return beerDTO.getVersion() == null ? 0L : beerDTO.getVersion();
+    }
+
+    private Mono<Void> beersChanged() {
+        return changeCounters.changed(ChangeCounter.BEERS);
+    }
+
+    @Override
+    public Mono<Boolean> deleteBeer(String id, Long expectedVersion) {
+        // findAndRemove returns the deleted beer, style summary needs its values
+        return beerRepository.removeById(id, expectedVersion)
+                .switchIfEmpty(Mono.defer(() -> failIfExists(id, expectedVersion)))
+                .flatMap(removedBeer -> beersChanged().thenReturn(removedBeer))
+                .doOnNext(removedBeer -> beerNameIndex.remove(removedBeer.getBeerName()))
+                .flatMap(removedBeer -> styleSummaryService.beerRemoved(removedBeer).thenReturn(true))
+                .defaultIfEmpty(false)
+                .doOnTerminate(() -> beerCache.invalidate(id));
+    }
+
+    @Override
+    public Mono<Long> deleteBeersByStyle(String beerStyle) {
+        return beerRepository.removeAllByStyle(beerStyle)
+                .doOnNext(deletedBeer -> beerNameIndex.remove(deletedBeer.getBeerName()))
+                .doOnNext(deletedBeer -> beerCache.invalidate(deletedBeer.getId()))
+                .count()
+                .flatMap(deleted -> styleSummaryService.styleRemoved(beerStyle).thenReturn(deleted))
+                .flatMap(deleted -> (deleted > 0 ? beersChanged() : Mono.<Void>empty()).thenReturn(deleted));
+    }
+
+    @Override
+    public Mono<Long> getBeersChangeCount() {
+        return changeCounterRepository.findById(ChangeCounter.BEERS)
+                .map(ChangeCounter::getCount)
+                .defaultIfEmpty(0L);
     }
 
     @Override
@@ -90,7 +420,7 @@ public class BeerServiceImpl implements BeerService {
 
     @Override
     public Flux<BeerDTO> findAllByBeerStyle(String beerStyle) {
-        return beerRepository.findByBeerStyle(beerStyle)
+        return beerStyleLookups.flux(beerStyle, beerRepository::findListing)
                 .map(beerMapper::beerToBeerDTO);
     }
 }
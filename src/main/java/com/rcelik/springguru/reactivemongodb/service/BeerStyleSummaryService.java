@@ -0,0 +1,54 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import java.util.List;
+import java.util.Map;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleSummaryDTO;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps per style totals in beer_style_summary collection. Beer writes report
+ * what they changed and the totals are moved by the difference, so reads do
+ * not need to group beer collection.
+ * Updates are not atomic with the beer writes, rebuild recomputes the totals
+ * when they drift.
+ */
+public interface BeerStyleSummaryService {
+
+    Mono<Void> beerAdded(Beer beer);
+
+    Mono<Void> beersAdded(List<Beer> beers);
+
+    /**
+     * moves the totals by the difference of the two versions of the beer,
+     * from one style to the other when the style is changed
+     */
+    Mono<Void> beerChanged(Beer before, Beer after);
+
+    Mono<Void> beerRemoved(Beer beer);
+
+    /**
+     * moves the totals by quantity deltas added to the beers by id, with one
+     * update per style
+     */
+    Mono<Void> quantitiesAdjusted(List<Beer> beers, Map<String, Integer> deltas);
+
+    /**
+     * drops the summary of a style whose beers are all deleted
+     */
+    Mono<Void> styleRemoved(String beerStyle);
+
+    /**
+     * returns summaries of styles that have beers, sorted by style
+     */
+    Flux<BeerStyleSummaryDTO> getSummaries();
+
+    /**
+     * recomputes summaries from beer collection and returns them. writes done
+     * while it runs may be missing from the result.
+     */
+    Flux<BeerStyleSummaryDTO> rebuild();
+}
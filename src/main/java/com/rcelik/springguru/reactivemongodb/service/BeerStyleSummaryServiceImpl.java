@@ -0,0 +1,110 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.mappers.BeerStyleSummaryMapper;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleSummaryDTO;
+import com.rcelik.springguru.reactivemongodb.repositories.BeerStyleSummaryRepository;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class BeerStyleSummaryServiceImpl implements BeerStyleSummaryService {
+    private final BeerStyleSummaryRepository summaryRepository;
+    private final BeerStyleSummaryMapper summaryMapper;
+
+    @Override
+    public Mono<Void> beerAdded(Beer beer) {
+        return increment(beer.getBeerStyle(), 1, quantity(beer), value(beer));
+    }
+
+    @Override
+    public Mono<Void> beersAdded(List<Beer> beers) {
+        // one upsert per style instead of one per beer
+        Map<String, List<Beer>> beersByStyle = beers.stream()
+                .filter(beer -> beer.getBeerStyle() != null)
+                .collect(Collectors.groupingBy(Beer::getBeerStyle));
+
+        return Flux.fromIterable(beersByStyle.entrySet())
+                .concatMap(styleBeers -> increment(styleBeers.getKey(), styleBeers.getValue().size(),
+                        styleBeers.getValue().stream().mapToLong(BeerStyleSummaryServiceImpl::quantity).sum(),
+                        styleBeers.getValue().stream().map(BeerStyleSummaryServiceImpl::value)
+                                .reduce(BigDecimal.ZERO, BigDecimal::add)))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> beerChanged(Beer before, Beer after) {
+        if (Objects.equals(before.getBeerStyle(), after.getBeerStyle())) {
+            return increment(after.getBeerStyle(), 0, quantity(after) - quantity(before),
+                    value(after).subtract(value(before)));
+        }
+        return beerRemoved(before).then(beerAdded(after));
+    }
+
+    @Override
+    public Mono<Void> beerRemoved(Beer beer) {
+        return increment(beer.getBeerStyle(), -1, -quantity(beer), value(beer).negate());
+    }
+
+    @Override
+    public Mono<Void> quantitiesAdjusted(List<Beer> beers, Map<String, Integer> deltas) {
+        Map<String, List<Beer>> beersByStyle = beers.stream()
+                .filter(beer -> beer.getBeerStyle() != null && deltas.containsKey(beer.getId()))
+                .collect(Collectors.groupingBy(Beer::getBeerStyle));
+
+        return Flux.fromIterable(beersByStyle.entrySet())
+                .concatMap(styleBeers -> increment(styleBeers.getKey(), 0,
+                        styleBeers.getValue().stream().mapToLong(beer -> deltas.get(beer.getId())).sum(),
+                        styleBeers.getValue().stream()
+                                .filter(beer -> beer.getPrice() != null)
+                                .map(beer -> beer.getPrice().multiply(BigDecimal.valueOf(deltas.get(beer.getId()))))
+                                .reduce(BigDecimal.ZERO, BigDecimal::add)))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> styleRemoved(String beerStyle) {
+        return summaryRepository.deleteById(beerStyle);
+    }
+
+    @Override
+    public Flux<BeerStyleSummaryDTO> getSummaries() {
+        return summaryRepository.findByCountGreaterThanOrderByBeerStyle(0)
+                .map(summaryMapper::beerStyleSummaryToDTO);
+    }
+
+    @Override
+    public Flux<BeerStyleSummaryDTO> rebuild() {
+        return summaryRepository.rebuild().thenMany(getSummaries());
+    }
+
+    private Mono<Void> increment(String beerStyle, long count, long quantity, BigDecimal value) {
+        if (beerStyle == null) {
+            // beers without style are not summarized, same as rebuild
+            return Mono.empty();
+        }
+        return summaryRepository.increment(beerStyle, count, quantity, value);
+    }
+
+    private static long quantity(Beer beer) {
+        return beer.getQuantitiyOnHand() == null ? 0 : beer.getQuantitiyOnHand();
+    }
+
+    private static BigDecimal value(Beer beer) {
+        if (beer.getPrice() == null || beer.getQuantitiyOnHand() == null) {
+            return BigDecimal.ZERO;
+        }
+        return beer.getPrice().multiply(BigDecimal.valueOf(beer.getQuantitiyOnHand()));
+    }
+}
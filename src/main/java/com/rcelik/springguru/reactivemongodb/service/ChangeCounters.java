@@ -0,0 +1,60 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.rcelik.springguru.reactivemongodb.repositories.ChangeCounterRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Increments change counters after writes. The write is already committed
+ * then, so a failing increment does not fail the caller. It is retried a few
+ * times before the caller continues, then in the background until it is
+ * written. Increments are not idempotent but counters only have to grow, an
+ * increment written twice only costs clients a full response.
+ */
+@Slf4j
+@Component
+public class ChangeCounters {
+    private static final Retry INLINE_RETRY = Retry.backoff(2, Duration.ofMillis(20));
+    private static final Retry BACKGROUND_RETRY = Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100))
+            .maxBackoff(Duration.ofSeconds(5));
+
+    private final Function<String, Mono<Void>> increment;
+
+    @Autowired
+    public ChangeCounters(ChangeCounterRepository changeCounterRepository) {
+        this(changeCounterRepository::increment);
+    }
+
+    ChangeCounters(Function<String, Mono<Void>> increment) {
+        this.increment = increment;
+    }
+
+    /**
+     * increments the counter of the collection, completes even when the
+     * increment could not be written yet
+     */
+    public Mono<Void> changed(String name) {
+        return Mono.defer(() -> increment.apply(name))
+                .retryWhen(INLINE_RETRY)
+                .onErrorResume(error -> {
+                    log.error("Incrementing change counter {} failed, its listing etags are stale until it is retried",
+                            name, error);
+                    Mono.defer(() -> increment.apply(name))
+                            .retryWhen(BACKGROUND_RETRY)
+                            .subscribe(
+                                    done -> {
+                                    },
+                                    retryError -> log.error("Incrementing change counter {} failed", name, retryError),
+                                    () -> log.info("Change counter {} is incremented after retries", name));
+                    return Mono.empty();
+                });
+    }
+}
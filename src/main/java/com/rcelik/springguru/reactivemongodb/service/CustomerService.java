@@ -1,21 +1,85 @@
 package com.rcelik.springguru.reactivemongodb.service;
 
+import java.util.Map;
+import java.util.Set;
+
 import com.rcelik.springguru.reactivemongodb.model.CustomerDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+import com.rcelik.springguru.reactivemongodb.model.PageDTO;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface CustomerService {
+    /**
+     * fields that customer pages can be sorted by
+     */
+    Set<String> PAGE_SORT_FIELDS = Set.of("id", "name");
+
+    /**
+     * fields that can be selected with projected reads
+     */
+    Set<String> PROJECTABLE_FIELDS = Set.of("id", "name", "createdDate", "lastModifiedDate");
+
     Flux<CustomerDTO> getAllCustomers();
 
+    /**
+     * lists customers with only the given fields
+     */
+    Flux<Map<String, Object>> getAllCustomers(Set<String> fields);
+
+    /**
+     * returns the customer with only the given fields
+     */
+    Mono<Map<String, Object>> getCustomerById(String id, Set<String> fields);
+
+    /**
+     * returns one page of customers sorted by sortField, starting after the
+     * given cursor. after is optional.
+     */
+    Mono<PageDTO<CustomerDTO>> getCustomersPage(String sortField, KeysetCursor after, int limit);
+
     Mono<CustomerDTO> getCustomerById(String id);
 
     Flux<CustomerDTO> getCustomersByName(String name);
 
     Mono<CustomerDTO> addCustomer(Mono<CustomerDTO> customer);
 
-    Mono<CustomerDTO> updateCustomer(CustomerDTO customer, String customerId);
+    default Mono<CustomerDTO> updateCustomer(CustomerDTO customer, String customerId) {
+        return updateCustomer(customer, customerId, null);
+    }
+
+    /**
+     * updates the customer if it still has expectedVersion, expectedVersion is
+     * optional. fails with OptimisticLockingFailureException when the customer
+     * has another version.
+     */
+    Mono<CustomerDTO> updateCustomer(CustomerDTO customer, String customerId, Long expectedVersion);
+
+    /**
+     * deletes the customer in a single round trip, emits false when there is no
+     * such customer
+     */
+    default Mono<Boolean> deleteCustomer(String customerId) {
+        return deleteCustomer(customerId, null);
+    }
+
+    /**
+     * deletes the customer if it still has expectedVersion, expectedVersion is
+     * optional. fails with OptimisticLockingFailureException when the customer
+     * has another version.
+     */
+    Mono<Boolean> deleteCustomer(String customerId, Long expectedVersion);
+
+    /**
+     * deletes all customers with the name and returns how many are deleted
+     */
+    Mono<Long> deleteCustomersByName(String name);
 
-    Mono<Void> deleteCustomer(String customerId);
+    /**
+     * number of writes made to customers so far, it changes whenever customers
+     * are created, updated or deleted
+     */
+    Mono<Long> getCustomersChangeCount();
 
 }
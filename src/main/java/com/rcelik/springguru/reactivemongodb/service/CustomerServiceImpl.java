@@ -1,9 +1,19 @@
 package com.rcelik.springguru.reactivemongodb.service;
 
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import com.rcelik.springguru.reactivemongodb.cache.ReactiveCache;
+import com.rcelik.springguru.reactivemongodb.domain.ChangeCounter;
+import com.rcelik.springguru.reactivemongodb.domain.Customer;
 import com.rcelik.springguru.reactivemongodb.mappers.CustomerMapper;
 import com.rcelik.springguru.reactivemongodb.model.CustomerDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+import com.rcelik.springguru.reactivemongodb.model.PageDTO;
+import com.rcelik.springguru.reactivemongodb.repositories.ChangeCounterRepository;
 import com.rcelik.springguru.reactivemongodb.repositories.CustomerRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -16,6 +26,9 @@ public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository repository;
     private final CustomerMapper mapper;
+    private final ReactiveCache<String, Customer> customerCache;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final ChangeCounters changeCounters;
 
     @Override
     public Flux<CustomerDTO> getAllCustomers() {
@@ -23,9 +36,36 @@ public class CustomerServiceImpl implements CustomerService {
                 .map(mapper::customerToCustomerDto);
     }
 
+    @Override
+    public Flux<Map<String, Object>> getAllCustomers(Set<String> fields) {
+        return repository.findProjected(fields)
+                .map(customer -> mapper.customerToFieldMap(customer, fields));
+    }
+
+    @Override
+    public Mono<Map<String, Object>> getCustomerById(String id, Set<String> fields) {
+        // projected reads are not cached, cache holds whole customers
+        return repository.findProjectedById(id, fields)
+                .map(customer -> mapper.customerToFieldMap(customer, fields));
+    }
+
+    @Override
+    public Mono<PageDTO<CustomerDTO>> getCustomersPage(String sortField, KeysetCursor after, int limit) {
+        // one more customer is fetched to understand whether there is a next page
+        return repository.findPage(sortField, after, limit + 1)
+                .collectList()
+                .map(customers -> PageDTO.fromSlice(customers, limit,
+                        customer -> KeysetCursor.of(sortField, sortValue(customer, sortField), customer.getId()),
+                        mapper::customerToCustomerDto));
+    }
+
+    private static String sortValue(Customer customer, String sortField) {
+        return "name".equals(sortField) ? customer.getName() : customer.getId();
+    }
+
     @Override
     public Mono<CustomerDTO> getCustomerById(String id) {
-        return repository.findById(id)
+        return customerCache.get(id, repository::findById)
                 .map(mapper::customerToCustomerDto);
     }
 
@@ -38,20 +78,62 @@ public class CustomerServiceImpl implements CustomerService {
     public Mono<CustomerDTO> addCustomer(Mono<CustomerDTO> customer) {
         return customer.map(mapper::customerDtoToCustomer)
                 .flatMap(repository::save)
+                .flatMap(savedCustomer -> customersChanged().thenReturn(savedCustomer))
                 .map(mapper::customerToCustomerDto);
     }
 
     @Override
-    public Mono<CustomerDTO> updateCustomer(CustomerDTO customer, String customerId) {
-        return repository.findById(customerId).map(foudnCustomer -> {
-            foudnCustomer.setName(customer.getName());
-            return foudnCustomer;
-        }).map(mapper::customerToCustomerDto);
+    public Mono<CustomerDTO> updateCustomer(CustomerDTO customer, String customerId, Long expectedVersion) {
+        // name is set with findAndModify so the version check and the write are atomic
+        return repository.setName(customerId, customer.getName(), expectedVersion)
+                .switchIfEmpty(Mono.defer(() -> failIfExists(customerId, expectedVersion)))
+                .flatMap(updatedCustomer -> customersChanged().thenReturn(updatedCustomer))
+                .doOnTerminate(() -> customerCache.invalidate(customerId))
+                .map(mapper::customerToCustomerDto);
+    }
+
+    @Override
+    public Mono<Boolean> deleteCustomer(String customerId, Long expectedVersion) {
+        return repository.deleteOneById(customerId, expectedVersion)
+                .filter(deleted -> deleted > 0)
+                .switchIfEmpty(Mono.defer(() -> failIfExists(customerId, expectedVersion)))
+                .flatMap(deleted -> customersChanged().thenReturn(true))
+                .defaultIfEmpty(false)
+                .doOnTerminate(() -> customerCache.invalidate(customerId));
+    }
+
+    /**
+     * a conditional write that matched nothing either has no customer or a
+     * customer with another version, only the latter is a conflict
+     */
+    private <T> Mono<T> failIfExists(String customerId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return repository.existsById(customerId)
+                .flatMap(exists -> exists
+                        ? Mono.<T>error(new OptimisticLockingFailureException(
+                                "customer " + customerId + " has another version"))
+                        : Mono.<T>empty());
+    }
+
+    private Mono<Void> customersChanged() {
+        return changeCounters.changed(ChangeCounter.CUSTOMERS);
+    }
+
+    @Override
+    public Mono<Long> deleteCustomersByName(String name) {
+        // deleted ids are not known, so the whole cache is dropped
+        return repository.deleteManyByName(name)
+                .flatMap(deleted -> (deleted > 0 ? customersChanged() : Mono.<Void>empty()).thenReturn(deleted))
+                .doOnTerminate(customerCache::invalidateAll);
     }
 
     @Override
-    public Mono<Void> deleteCustomer(String customerId) {
-        return repository.deleteById(customerId);
+    public Mono<Long> getCustomersChangeCount() {
+        return changeCounterRepository.findById(ChangeCounter.CUSTOMERS)
+                .map(ChangeCounter::getCount)
+                .defaultIfEmpty(0L);
     }
 
 }
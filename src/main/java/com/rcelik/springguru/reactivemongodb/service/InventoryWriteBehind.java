@@ -0,0 +1,118 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoTimeoutException;
+import com.rcelik.springguru.reactivemongodb.cache.DeltaBuffer;
+import com.rcelik.springguru.reactivemongodb.cache.ReactiveCache;
+import com.rcelik.springguru.reactivemongodb.config.InventoryProperties;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.domain.ChangeCounter;
+import com.rcelik.springguru.reactivemongodb.repositories.BeerRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Buffers inventory adjustments when write-behind is enabled. Adjustments of
+ * the same beer are summed in memory and all buffered beers are written with
+ * one bulk $inc, so a few hot beers adjusted thousands of times a second cost
+ * one update each per flush. Buffered adjustments are written on shutdown, the
+ * ones buffered when the process dies are lost.
+ * Only adjustments that are surely not written are retried: the ones rejected
+ * with a write error, or all of them when the server could not be reached.
+ * A failure in between, e.g. a socket read timeout, drops the batch since
+ * writing it again could add the deltas twice.
+ * Flush sizes are published as app.deltabuffer.* metrics tagged inventory.
+ */
+@Slf4j
+@Component
+public class InventoryWriteBehind {
+    private final BeerRepository beerRepository;
+    private final BeerStyleSummaryService styleSummaryService;
+    private final ChangeCounters changeCounters;
+    private final ReactiveCache<String, Beer> beerCache;
+    private final DeltaBuffer<String> deltas;
+
+    public InventoryWriteBehind(InventoryProperties properties, BeerRepository beerRepository,
+            BeerStyleSummaryService styleSummaryService, ChangeCounters changeCounters,
+            ReactiveCache<String, Beer> beerCache, MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.styleSummaryService = styleSummaryService;
+        this.changeCounters = changeCounters;
+        this.beerCache = beerCache;
+
+        InventoryProperties.WriteBehind writeBehind = properties.getWriteBehind();
+        this.deltas = writeBehind.isEnabled()
+                ? new DeltaBuffer<>("inventory", writeBehind.getFlushInterval(), writeBehind.getMaxEntries(),
+                        writeBehind.getStripes(), this::write, meterRegistry)
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return deltas != null;
+    }
+
+    /**
+     * buffers the delta to be added to the quantity on hand of the beer
+     */
+    public void add(String beerId, int delta) {
+        deltas.add(beerId, delta);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (deltas != null) {
+            deltas.close();
+        }
+    }
+
+    private Mono<Set<String>> write(Map<String, Integer> quantityDeltas) {
+        return beerRepository.incrementQuantities(quantityDeltas)
+                .onErrorResume(InventoryWriteBehind::isNotSent, error -> {
+                    log.warn("Adjusting {} beers failed before the write was sent", quantityDeltas.size(), error);
+                    return Mono.just(quantityDeltas.keySet());
+                })
+                .flatMap(failedIds -> {
+                    Map<String, Integer> written = new HashMap<>(quantityDeltas);
+                    written.keySet().removeAll(failedIds);
+                    return written.isEmpty()
+                            ? Mono.just(failedIds)
+                            : afterWrite(written).thenReturn(failedIds);
+                })
+                .doOnTerminate(() -> quantityDeltas.keySet().forEach(beerCache::invalidate));
+    }
+
+    /**
+     * server selection and connection checkout time out before anything is sent,
+     * a refused connection is never written to
+     */
+    private static boolean isNotSent(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoTimeoutException || cause instanceof MongoSocketOpenException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> afterWrite(Map<String, Integer> quantityDeltas) {
+        // styles of the beers are read after the write, one $in query per flush
+        Mono<Void> summaries = beerRepository.findAllById(quantityDeltas.keySet())
+                .collectList()
+                .flatMap(beers -> styleSummaryService.quantitiesAdjusted(beers, quantityDeltas))
+                .onErrorResume(error -> {
+                    log.warn("Updating style summaries of {} adjusted beers failed", quantityDeltas.size(), error);
+                    return Mono.empty();
+                });
+        // listing etags must change even when the summaries could not be updated
+        return Mono.when(summaries, changeCounters.changed(ChangeCounter.BEERS));
+    }
+}
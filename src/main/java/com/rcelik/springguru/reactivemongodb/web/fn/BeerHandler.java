@@ -1,14 +1,34 @@
 package com.rcelik.springguru.reactivemongodb.web.fn;
 
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.function.server.ServerResponse.BodyBuilder;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.rcelik.springguru.reactivemongodb.model.BeerChangeEventDTO;
 import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerLookupResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerSearchHitDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleStatsDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleSummaryDTO;
+import com.rcelik.springguru.reactivemongodb.model.BulkItemResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.DeleteResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.InventoryAdjustmentDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
 import com.rcelik.springguru.reactivemongodb.service.BeerService;
+import com.rcelik.springguru.reactivemongodb.service.BeerStyleSummaryService;
 
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
@@ -23,9 +43,49 @@ import reactor.core.publisher.Mono;
 @Component
 @RequiredArgsConstructor
 public class BeerHandler {
+    private static final int AUTOCOMPLETE_LIMIT = 10;
+    private static final String IDS_PARAM = "ids";
+    private static final int MAX_IDS = 1000;
+    private static final ParameterizedTypeReference<List<String>> ID_LIST_TYPE = new ParameterizedTypeReference<>() {
+    };
+
     private final BeerService beerService;
+    private final BeerStyleSummaryService styleSummaryService;
 
+    /**
+     * every listing is computed from beers only, so all of them are validated
+     * with the change counter of beers. when the client has the current listing
+     * beers are not read at all.
+     */
     public Mono<ServerResponse> listBeers(ServerRequest request) {
+        return beerService.getBeersChangeCount()
+                .flatMap(changeCount -> {
+                    MediaType mediaType = EntityMediaTypes.negotiate(request);
+                    String etag = ETags.forChangeCount(changeCount, mediaType);
+                    return ETags.isNotModified(request, etag)
+                            ? ETags.notModified(etag)
+                            : listBeers(request, ServerResponse.ok().contentType(mediaType).eTag(etag));
+                });
+    }
+
+    private Mono<ServerResponse> listBeers(ServerRequest request, BodyBuilder response) {
+        if (request.queryParam(IDS_PARAM).isPresent()) {
+            if (PageRequests.isPaged(request) || ProjectionRequests.isProjected(request)) {
+                return Mono.error(new ServerWebInputException("ids can not be used with paging or fields"));
+            }
+            return Mono.fromCallable(() -> parseIds(request.queryParam(IDS_PARAM).get()))
+                    .flatMap(beerIds -> lookupBeers(beerIds, response));
+        }
+        if (PageRequests.isPaged(request)) {
+            if (ProjectionRequests.isProjected(request)) {
+                return Mono.error(new ServerWebInputException("fields can not be used with paging"));
+            }
+            return listBeersPage(request, response);
+        }
+        if (ProjectionRequests.isProjected(request)) {
+            return listProjectedBeers(request, response);
+        }
+
         Flux<BeerDTO> result;
         if (request.queryParam("beerStyle").isPresent()) {
             result = beerService.findAllByBeerStyle(request.queryParam("beerStyle").get());
@@ -33,21 +93,180 @@ public class BeerHandler {
             result = beerService.listBeers();
         }
 
-        return ServerResponse.ok().body(result, BeerDTO.class);
+        return response.body(result, BeerDTO.class);
     }
 
-    public Mono<ServerResponse> getBeerById(ServerRequest request) {
+    /**
+     * looks up beers with ids given as json array in request body, for id lists
+     * that do not fit in a url
+     */
+    public Mono<ServerResponse> lookupBeers(ServerRequest request) {
+        return request.bodyToMono(ID_LIST_TYPE)
+                .switchIfEmpty(Mono.error(new ServerWebInputException("ids are required")))
+                .doOnNext(BeerHandler::validateIds)
+                .flatMap(beerIds -> lookupBeers(beerIds, ServerResponse.ok()));
+    }
+
+    private Mono<ServerResponse> lookupBeers(List<String> beerIds, BodyBuilder response) {
+        return response.body(beerService.getBeers(beerIds), BeerLookupResultDTO.class);
+    }
+
+    private static List<String> parseIds(String ids) {
+        List<String> beerIds = Arrays.stream(ids.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .toList();
+        validateIds(beerIds);
+        return beerIds;
+    }
+
+    private static void validateIds(List<String> beerIds) {
+        if (beerIds.isEmpty()) {
+            throw new ServerWebInputException("ids are required");
+        }
+        if (beerIds.size() > MAX_IDS) {
+            throw new ServerWebInputException("at most " + MAX_IDS + " ids can be looked up at once");
+        }
+    }
+
+    private Mono<ServerResponse> listProjectedBeers(ServerRequest request, BodyBuilder response) {
+        return Mono.fromCallable(() -> ProjectionRequests.fields(request, BeerService.PROJECTABLE_FIELDS))
+                .flatMap(fields -> response.body(
+                        beerService.listBeers(request.queryParam("beerStyle").orElse(null), fields),
+                        ProjectionRequests.FIELD_MAP_TYPE));
+    }
+
+    private Mono<ServerResponse> listBeersPage(ServerRequest request, BodyBuilder response) {
+        return Mono.defer(() -> {
+            String sortField = PageRequests.sortField(request, BeerService.PAGE_SORT_FIELDS);
+            KeysetCursor after = PageRequests.after(request, sortField);
+            int limit = PageRequests.limit(request);
+
+            return beerService.listBeersPage(request.queryParam("beerStyle").orElse(null), sortField, after, limit);
+        }).flatMap(page -> response.bodyValue(page));
+    }
+
+    /**
+     * streams beers as newline delimited json, each beer is written as soon as
+     * it is read from mongo
+     */
+    public Mono<ServerResponse> streamBeersAsNdjson(ServerRequest request) {
+        return streamBeers(request, MediaType.APPLICATION_NDJSON);
+    }
+
+    /**
+     * streams beers as server sent events
+     */
+    public Mono<ServerResponse> streamBeersAsEvents(ServerRequest request) {
+        return streamBeers(request, MediaType.TEXT_EVENT_STREAM);
+    }
+
+    private Mono<ServerResponse> streamBeers(ServerRequest request, MediaType mediaType) {
+        return ServerResponse.ok()
+                .contentType(mediaType)
+                .body(beerService.streamBeers(request.queryParam("beerStyle").orElse(null)), BeerDTO.class);
+    }
+
+    /**
+     * streams beer changes as newline delimited json. resumeAfter parameter
+     * continues the stream after the event with that resume token.
+     */
+    public Mono<ServerResponse> streamBeerChangesAsNdjson(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(beerService.watchBeerChanges(request.queryParam("beerStyle").orElse(null),
+                        request.queryParam("resumeAfter").orElse(null)), BeerChangeEventDTO.class);
+    }
+
+    /**
+     * streams beer changes as server sent events. event id is the resume token,
+     * so reconnecting clients continue from Last-Event-ID header.
+     */
+    public Mono<ServerResponse> streamBeerChangesAsEvents(ServerRequest request) {
+        String resumeToken = request.headers().firstHeader("Last-Event-ID");
+        if (resumeToken == null) {
+            resumeToken = request.queryParam("resumeAfter").orElse(null);
+        }
+
+        Flux<ServerSentEvent<BeerChangeEventDTO>> events = beerService
+                .watchBeerChanges(request.queryParam("beerStyle").orElse(null), resumeToken)
+                .map(changeEvent -> ServerSentEvent.builder(changeEvent)
+                        .id(changeEvent.getResumeToken())
+                        .event(changeEvent.getOperationType())
+                        .build());
 
-        return ServerResponse.ok().body(
-                beerService.getBeer(request.pathVariable("beerId"))
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND))),
-                BeerDTO.class);
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events, new ParameterizedTypeReference<ServerSentEvent<BeerChangeEventDTO>>() {
+                });
+    }
+
+    /**
+     * text search on beer names and styles, q is required
+     */
+    public Mono<ServerResponse> searchBeers(ServerRequest request) {
+        return Mono.fromCallable(() -> {
+            String text = request.queryParam("q").filter(StringUtils::hasText)
+                    .orElseThrow(() -> new ServerWebInputException("q is required"));
+            return beerService.searchBeers(text, PageRequests.limit(request));
+        }).flatMap(hits -> ServerResponse.ok().body(hits, BeerSearchHitDTO.class));
+    }
+
+    /**
+     * beer names starting with prefix, at most 10 unless limit is given
+     */
+    public Mono<ServerResponse> autocompleteBeerNames(ServerRequest request) {
+        return Mono.fromCallable(() -> {
+            String prefix = request.queryParam("prefix").filter(StringUtils::hasText)
+                    .orElseThrow(() -> new ServerWebInputException("prefix is required"));
+            int limit = request.queryParam(PageRequests.LIMIT_PARAM).isPresent()
+                    ? PageRequests.limit(request)
+                    : AUTOCOMPLETE_LIMIT;
+            return beerService.autocompleteBeerNames(prefix, limit);
+        }).flatMap(names -> ServerResponse.ok().body(names, List.class));
+    }
 
-        /*
-         * return beerService.getBeer(request.pathVariable("beerId"))
-         * .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-         * .flatMap(beerDto -> ServerResponse.ok().bodyValue(beerDto));
-         */
+    /**
+     * returns inventory statistics per beer style, optionally only for the
+     * given beerStyle
+     */
+    public Mono<ServerResponse> getBeerStyleStats(ServerRequest request) {
+        return ServerResponse.ok().body(beerService.getStyleStats(request.queryParam("beerStyle").orElse(null)),
+                BeerStyleStatsDTO.class);
+    }
+
+    /**
+     * returns incrementally maintained totals of beer styles
+     */
+    public Mono<ServerResponse> getBeerStyleSummaries(ServerRequest request) {
+        return ServerResponse.ok().body(styleSummaryService.getSummaries(), BeerStyleSummaryDTO.class);
+    }
+
+    /**
+     * recomputes beer style totals from beers and returns them
+     */
+    public Mono<ServerResponse> rebuildBeerStyleSummaries(ServerRequest request) {
+        return ServerResponse.ok().body(styleSummaryService.rebuild(), BeerStyleSummaryDTO.class);
+    }
+
+    public Mono<ServerResponse> getBeerById(ServerRequest request) {
+        if (ProjectionRequests.isProjected(request)) {
+            return Mono.fromCallable(() -> ProjectionRequests.fields(request, BeerService.PROJECTABLE_FIELDS))
+                    .flatMap(fields -> beerService.getBeer(request.pathVariable("beerId"), fields))
+                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                    .flatMap(fieldMap -> ServerResponse.ok().bodyValue(fieldMap));
+        }
+
+        // beer is read before the response is built, its version is the etag
+        return beerService.getBeer(request.pathVariable("beerId"))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(beerDto -> {
+                    MediaType mediaType = EntityMediaTypes.negotiate(request);
+                    String etag = ETags.forVersion(beerDto.getVersion(), mediaType);
+                    return ETags.isNotModified(request, etag)
+                            ? ETags.notModified(etag)
+                            : ServerResponse.ok().contentType(mediaType).eTag(etag).bodyValue(beerDto);
+                });
     }
 
     public Mono<ServerResponse> createNewBeer(ServerRequest request) {
@@ -57,27 +276,74 @@ public class BeerHandler {
                         .build());
     }
 
+    /**
+     * saves beers given as json array or newline delimited json.
+     * returns id or error for each beer in the order they are given.
+     */
+    public Mono<ServerResponse> createBeersInBulk(ServerRequest request) {
+        return ServerResponse.ok().body(beerService.saveBeers(request.bodyToFlux(BeerDTO.class)),
+                BulkItemResultDTO.class);
+    }
+
+    /**
+     * If-Match is optional, when it is given the beer is only replaced if it
+     * still has that version
+     */
     public Mono<ServerResponse> updateBeer(ServerRequest request) {
-        return request.bodyToMono(BeerDTO.class)
-                .flatMap(beerDTO -> {
-                    return beerService.updateBeer(request.pathVariable("beerId"), beerDTO);
-                }).switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(savedDto -> {
-                    return ServerResponse.noContent().build();
-                });
+        return Mono.defer(() -> {
+            Long expectedVersion = ETags.expectedVersion(request);
+            return request.bodyToMono(BeerDTO.class)
+                    .flatMap(beerDTO -> beerService.updateBeer(request.pathVariable("beerId"), beerDTO,
+                            expectedVersion));
+        }).onErrorMap(OptimisticLockingFailureException.class, ETags::preconditionFailed)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(savedDto -> ServerResponse.noContent().eTag(ETags.forVersion(savedDto.getVersion())).build());
     }
 
     public Mono<ServerResponse> patchBeerById(ServerRequest request) {
-        return request.bodyToMono(BeerDTO.class)
-                .flatMap(requestedDto -> beerService.patchBeer(request.pathVariable("beerId"), requestedDto))
+        return Mono.defer(() -> {
+            Long expectedVersion = ETags.expectedVersion(request);
+            return request.bodyToMono(BeerDTO.class)
+                    .flatMap(requestedDto -> beerService.patchBeer(request.pathVariable("beerId"), requestedDto,
+                            expectedVersion));
+        }).onErrorMap(OptimisticLockingFailureException.class, ETags::preconditionFailed)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(patchedDto -> ServerResponse.noContent().build());
+                .flatMap(patchedDto -> ServerResponse.noContent().eTag(ETags.forVersion(patchedDto.getVersion()))
+                        .build());
     }
 
-    public Mono<ServerResponse> deleteById(ServerRequest request) {
-        return beerService.getBeer(request.pathVariable("beerId"))
+    /**
+     * adds the delta in request body to the quantity on hand of the beer.
+     * returns 200 with the new quantity when it is written, 202 when it is
+     * buffered to be written later.
+     */
+    public Mono<ServerResponse> adjustInventory(ServerRequest request) {
+        return request.bodyToMono(InventoryAdjustmentDTO.class)
+                .filter(adjustment -> adjustment.getDelta() != null)
+                .switchIfEmpty(Mono.error(new ServerWebInputException("delta is required")))
+                .flatMap(adjustment -> beerService.adjustInventory(request.pathVariable("beerId"),
+                        adjustment.getDelta()))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(foundBeerDto -> beerService.deleteBeer(foundBeerDto.getId()))
-                .then(ServerResponse.noContent().build());
+                .flatMap(result -> (result.isApplied() ? ServerResponse.ok() : ServerResponse.accepted())
+                        .bodyValue(result));
+    }
+
+    public Mono<ServerResponse> deleteById(ServerRequest request) {
+        return Mono.defer(() -> beerService.deleteBeer(request.pathVariable("beerId"), ETags.expectedVersion(request)))
+                .onErrorMap(OptimisticLockingFailureException.class, ETags::preconditionFailed)
+                .flatMap(deleted -> deleted
+                        ? ServerResponse.noContent().build()
+                        : Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * deletes all beers of the style given with beerStyle parameter. the
+     * parameter is required so that the whole catalog is not deleted by mistake.
+     */
+    public Mono<ServerResponse> deleteBeersByStyle(ServerRequest request) {
+        return Mono.justOrEmpty(request.queryParam("beerStyle").filter(StringUtils::hasText))
+                .switchIfEmpty(Mono.error(new ServerWebInputException("beerStyle is required")))
+                .flatMap(beerService::deleteBeersByStyle)
+                .flatMap(deleted -> ServerResponse.ok().bodyValue(new DeleteResultDTO(deleted)));
     }
 }
@@ -3,6 +3,7 @@ package com.rcelik.springguru.reactivemongodb.web.fn;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
 import org.springframework.web.reactive.function.server.RequestPredicates;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
@@ -22,22 +23,61 @@ public class BeerRouterConfig {
      */
     public static final String BEER_PATH = "/api/v3/beers";
     public static final String BEER_ID = BEER_PATH + "/{beerId}";
+    public static final String BEER_BULK_PATH = BEER_PATH + "/bulk";
+    public static final String BEER_CHANGES_PATH = BEER_PATH + "/changes";
+    public static final String BEER_STATS_PATH = BEER_PATH + "/stats";
+    public static final String BEER_SUMMARY_PATH = BEER_PATH + "/summary";
+    public static final String BEER_SUMMARY_REBUILD_PATH = BEER_SUMMARY_PATH + "/rebuild";
+    public static final String BEER_SEARCH_PATH = BEER_PATH + "/search";
+    public static final String BEER_AUTOCOMPLETE_PATH = BEER_PATH + "/autocomplete";
+    public static final String BEER_LOOKUP_PATH = BEER_PATH + "/lookup";
+    public static final String BEER_INVENTORY_ADJUST_PATH = BEER_ID + "/inventory/adjust";
 
 
     private final BeerHandler beerHandler;
+    private final RouteMetrics routeMetrics;
+    private final ConcurrencyLimits concurrencyLimits;
 
     /**
      * creates a RouterFunction bean that holds configuration for beer endpoints
     */
     @Bean
     RouterFunction<ServerResponse> beerRoutes() {
+        // streams stay open for long and their latency does not tell how loaded mongo
+        // is, so only the other routes are limited. the limit is chosen by route, not
+        // by Accept, so that clients can not opt out of it
+        HandlerFilterFunction<ServerResponse, ServerResponse> limit = concurrencyLimits.forGroup("beers");
+
         return RouterFunctions.route()
-                .GET(BEER_PATH, RequestPredicates.accept(MediaType.APPLICATION_JSON), beerHandler::listBeers)
-                .GET(BEER_ID, RequestPredicates.accept(MediaType.APPLICATION_JSON), beerHandler::getBeerById)
-                .POST(BEER_PATH, RequestPredicates.accept(MediaType.APPLICATION_JSON), beerHandler::createNewBeer)
-                .PUT(BEER_ID, RequestPredicates.accept(MediaType.APPLICATION_JSON), beerHandler::updateBeer)
-                .PATCH(BEER_ID, RequestPredicates.accept(MediaType.APPLICATION_JSON), beerHandler::patchBeerById)
-                .DELETE(BEER_ID, beerHandler::deleteById)
+                .GET(BEER_PATH, EntityMediaTypes.accepted(), limit.apply(beerHandler::listBeers))
+                .GET(BEER_PATH, RequestPredicates.accept(MediaType.APPLICATION_NDJSON), beerHandler::streamBeersAsNdjson)
+                .GET(BEER_PATH, RequestPredicates.accept(MediaType.TEXT_EVENT_STREAM), beerHandler::streamBeersAsEvents)
+                // changes, stats, summary, search and autocomplete paths should be matched
+                // before beer id path
+                .GET(BEER_CHANGES_PATH, RequestPredicates.accept(MediaType.TEXT_EVENT_STREAM),
+                        beerHandler::streamBeerChangesAsEvents)
+                .GET(BEER_CHANGES_PATH, RequestPredicates.accept(MediaType.APPLICATION_NDJSON),
+                        beerHandler::streamBeerChangesAsNdjson)
+                .GET(BEER_STATS_PATH, EntityMediaTypes.accepted(), limit.apply(beerHandler::getBeerStyleStats))
+                .GET(BEER_SUMMARY_PATH, EntityMediaTypes.accepted(), limit.apply(beerHandler::getBeerStyleSummaries))
+                .GET(BEER_SEARCH_PATH, EntityMediaTypes.accepted(), limit.apply(beerHandler::searchBeers))
+                .GET(BEER_AUTOCOMPLETE_PATH, EntityMediaTypes.accepted(),
+                        limit.apply(beerHandler::autocompleteBeerNames))
+                .GET(BEER_ID, EntityMediaTypes.accepted(), limit.apply(beerHandler::getBeerById))
+                .POST(BEER_PATH, EntityMediaTypes.accepted(), limit.apply(beerHandler::createNewBeer))
+                .POST(BEER_BULK_PATH,
+                        RequestPredicates.contentType(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON),
+                        limit.apply(beerHandler::createBeersInBulk))
+                .POST(BEER_SUMMARY_REBUILD_PATH, limit.apply(beerHandler::rebuildBeerStyleSummaries))
+                .POST(BEER_LOOKUP_PATH, EntityMediaTypes.given(), limit.apply(beerHandler::lookupBeers))
+                .POST(BEER_INVENTORY_ADJUST_PATH, EntityMediaTypes.given(), limit.apply(beerHandler::adjustInventory))
+                .PUT(BEER_ID, EntityMediaTypes.accepted(), limit.apply(beerHandler::updateBeer))
+                .PATCH(BEER_ID, EntityMediaTypes.accepted(), limit.apply(beerHandler::patchBeerById))
+                .DELETE(BEER_ID, limit.apply(beerHandler::deleteById))
+                .DELETE(BEER_PATH, limit.apply(beerHandler::deleteBeersByStyle))
+                .filter(EntityMediaTypes.varyByRepresentation())
+                // metrics filter wraps the limited handlers, so rejected requests are recorded too
+                .filter(routeMetrics.forGroup("beers"))
                 .build();
     }
 }
@@ -0,0 +1,106 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.rcelik.springguru.reactivemongodb.config.ConcurrencyLimitProperties;
+import com.rcelik.springguru.reactivemongodb.limit.AdaptiveConcurrencyLimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sheds load of functional routes. Each route group gets its own adaptive
+ * concurrency limit, requests over it get 503 with Retry-After right away
+ * instead of waiting behind the others. A request holds its slot until its
+ * response is written.
+ * Routers apply the filter to every route except the streaming ones, they stay
+ * open for long and their latency does not tell how loaded mongo is.
+ *
+ * <ul>
+ * <li>app.route.concurrency.limit: current limit of the group</li>
+ * <li>app.route.concurrency.in.flight: requests of the group holding a slot</li>
+ * <li>app.route.concurrency.rejected: requests rejected over the limit</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimits {
+    static final String LIMIT_METRIC = "app.route.concurrency.limit";
+    static final String IN_FLIGHT_METRIC = "app.route.concurrency.in.flight";
+    static final String REJECTED_METRIC = "app.route.concurrency.rejected";
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * creates the filter that limits the routes of given group
+     */
+    public HandlerFilterFunction<ServerResponse, ServerResponse> forGroup(String group) {
+        if (!properties.isEnabled()) {
+            return (request, next) -> next.handle(request);
+        }
+
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties);
+        Gauge.builder(LIMIT_METRIC, limit, AdaptiveConcurrencyLimit::getLimit)
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METRIC, limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("group", group)
+                .register(meterRegistry);
+        Counter rejected = Counter.builder(REJECTED_METRIC)
+                .tag("group", group)
+                .register(meterRegistry);
+        String retryAfter = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+
+        return (request, next) -> {
+            AdaptiveConcurrencyLimit.Permit permit = limit.tryAcquire();
+            if (permit == null) {
+                rejected.increment();
+                return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                        .build();
+            }
+
+            AtomicBoolean responded = new AtomicBoolean();
+            return next.handle(request)
+                    .map(response -> {
+                        responded.set(true);
+                        return (ServerResponse) new ReleasingResponse(response, permit);
+                    })
+                    // a response releases the slot once it is written, otherwise it is
+                    // released when the handler errors, cancels or completes empty
+                    .doFinally(signal -> {
+                        if (!responded.get()) {
+                            permit.release();
+                        }
+                    });
+        };
+    }
+
+    /**
+     * releases the slot when the write of the response finishes
+     */
+    private static class ReleasingResponse extends DelegatingServerResponse {
+        private final AdaptiveConcurrencyLimit.Permit permit;
+
+        ReleasingResponse(ServerResponse delegate, AdaptiveConcurrencyLimit.Permit permit) {
+            super(delegate);
+            this.permit = permit;
+        }
+
+        @Override
+        public Mono<Void> writeTo(ServerWebExchange exchange, Context context) {
+            return delegate.writeTo(exchange, context).doFinally(signal -> permit.release());
+        }
+    }
+}
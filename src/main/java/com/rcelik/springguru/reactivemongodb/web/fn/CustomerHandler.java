@@ -1,17 +1,23 @@
 package com.rcelik.springguru.reactivemongodb.web.fn;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.function.server.ServerResponse.BodyBuilder;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebInputException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.rcelik.springguru.reactivemongodb.model.CustomerDTO;
+import com.rcelik.springguru.reactivemongodb.model.DeleteResultDTO;
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
 import com.rcelik.springguru.reactivemongodb.service.CustomerService;
 
 import lombok.RequiredArgsConstructor;
@@ -33,14 +39,61 @@ public class CustomerHandler {
         }
     }
 
+    /**
+     * listings are validated with the change counter of customers
+     */
     public Mono<ServerResponse> getAllCustomers(ServerRequest request) {
-        return ServerResponse.ok().body(customerService.getAllCustomers(), CustomerDTO.class);
+        return customerService.getCustomersChangeCount()
+                .flatMap(changeCount -> {
+                    MediaType mediaType = EntityMediaTypes.negotiate(request);
+                    String etag = ETags.forChangeCount(changeCount, mediaType);
+                    return ETags.isNotModified(request, etag)
+                            ? ETags.notModified(etag)
+                            : getAllCustomers(request, ServerResponse.ok().contentType(mediaType).eTag(etag));
+                });
+    }
+
+    private Mono<ServerResponse> getAllCustomers(ServerRequest request, BodyBuilder response) {
+        if (PageRequests.isPaged(request)) {
+            if (ProjectionRequests.isProjected(request)) {
+                return Mono.error(new ServerWebInputException("fields can not be used with paging"));
+            }
+            return getCustomersPage(request, response);
+        }
+        if (ProjectionRequests.isProjected(request)) {
+            return Mono.fromCallable(() -> ProjectionRequests.fields(request, CustomerService.PROJECTABLE_FIELDS))
+                    .flatMap(fields -> response.body(customerService.getAllCustomers(fields),
+                            ProjectionRequests.FIELD_MAP_TYPE));
+        }
+        return response.body(customerService.getAllCustomers(), CustomerDTO.class);
+    }
+
+    private Mono<ServerResponse> getCustomersPage(ServerRequest request, BodyBuilder response) {
+        return Mono.defer(() -> {
+            String sortField = PageRequests.sortField(request, CustomerService.PAGE_SORT_FIELDS);
+            KeysetCursor after = PageRequests.after(request, sortField);
+            int limit = PageRequests.limit(request);
+
+            return customerService.getCustomersPage(sortField, after, limit);
+        }).flatMap(page -> response.bodyValue(page));
     }
 
     public Mono<ServerResponse> getCustomerById(ServerRequest request) {
+        if (ProjectionRequests.isProjected(request)) {
+            return Mono.fromCallable(() -> ProjectionRequests.fields(request, CustomerService.PROJECTABLE_FIELDS))
+                    .flatMap(fields -> customerService.getCustomerById(request.pathVariable("id"), fields))
+                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                    .flatMap(fieldMap -> ServerResponse.ok().bodyValue(fieldMap));
+        }
         return customerService.getCustomerById(request.pathVariable("id"))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(customerDto -> ServerResponse.ok().bodyValue(customerDto));
+                .flatMap(customerDto -> {
+                    MediaType mediaType = EntityMediaTypes.negotiate(request);
+                    String etag = ETags.forVersion(customerDto.getVersion(), mediaType);
+                    return ETags.isNotModified(request, etag)
+                            ? ETags.notModified(etag)
+                            : ServerResponse.ok().contentType(mediaType).eTag(etag).bodyValue(customerDto);
+                });
     }
 
     public Mono<ServerResponse> addCustomer(ServerRequest request) {
@@ -55,20 +108,41 @@ public class CustomerHandler {
                 });
     }
 
+    /**
+     * If-Match is optional, when it is given the customer is only updated if it
+     * still has that version
+     */
     public Mono<ServerResponse> updateCustomer(ServerRequest request) {
-        return request.bodyToMono(CustomerDTO.class)
-                .doOnNext(this::validateObject)
-                .flatMap(requestedCustomer -> {
-                    return customerService.updateCustomer(requestedCustomer, request.pathVariable("id"));
-                }).switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(updatedCustomer -> {
-                    return ServerResponse.noContent().build();
-                });
+        return Mono.defer(() -> {
+            Long expectedVersion = ETags.expectedVersion(request);
+            return request.bodyToMono(CustomerDTO.class)
+                    .doOnNext(this::validateObject)
+                    .flatMap(requestedCustomer -> customerService.updateCustomer(requestedCustomer,
+                            request.pathVariable("id"), expectedVersion));
+        }).onErrorMap(OptimisticLockingFailureException.class, ETags::preconditionFailed)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(updatedCustomer -> ServerResponse.noContent()
+                        .eTag(ETags.forVersion(updatedCustomer.getVersion())).build());
     }
 
     public Mono<ServerResponse> deleteCustomerById(ServerRequest request) {
-        return customerService.deleteCustomer(request.pathVariable("id"))
-                .then(ServerResponse.noContent().build());
+        return Mono.defer(() -> customerService.deleteCustomer(request.pathVariable("id"),
+                ETags.expectedVersion(request)))
+                .onErrorMap(OptimisticLockingFailureException.class, ETags::preconditionFailed)
+                .flatMap(deleted -> deleted
+                        ? ServerResponse.noContent().build()
+                        : Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * deletes all customers with the name given with name parameter. the
+     * parameter is required so that all customers are not deleted by mistake.
+     */
+    public Mono<ServerResponse> deleteCustomersByName(ServerRequest request) {
+        return Mono.justOrEmpty(request.queryParam("name").filter(StringUtils::hasText))
+                .switchIfEmpty(Mono.error(new ServerWebInputException("name is required")))
+                .flatMap(customerService::deleteCustomersByName)
+                .flatMap(deleted -> ServerResponse.ok().bodyValue(new DeleteResultDTO(deleted)));
     }
 
 }
@@ -2,8 +2,6 @@ package com.rcelik.springguru.reactivemongodb.web.fn;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.MediaType;
-import org.springframework.web.reactive.function.server.RequestPredicates;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
@@ -19,15 +17,22 @@ public class CustomerRouteConfig {
     public static final String CUSTOMER_ID = CUSTOMER_PATH + "/{id}";
 
     private final CustomerHandler handler;
+    private final RouteMetrics routeMetrics;
+    private final ConcurrencyLimits concurrencyLimits;
 
     @Bean
     RouterFunction<ServerResponse> customerRouters() {
         return RouterFunctions.route()
-                .GET(CUSTOMER_PATH, RequestPredicates.accept(MediaType.APPLICATION_JSON), handler::getAllCustomers)
-                .GET(CUSTOMER_ID, RequestPredicates.accept(MediaType.APPLICATION_JSON), handler::getCustomerById)
-                .POST(CUSTOMER_PATH, RequestPredicates.contentType(MediaType.APPLICATION_JSON), handler::addCustomer)
-                .PUT(CUSTOMER_ID, RequestPredicates.accept(MediaType.APPLICATION_JSON), handler::updateCustomer)
+                .GET(CUSTOMER_PATH, EntityMediaTypes.accepted(), handler::getAllCustomers)
+                .GET(CUSTOMER_ID, EntityMediaTypes.accepted(), handler::getCustomerById)
+                .POST(CUSTOMER_PATH, EntityMediaTypes.given(), handler::addCustomer)
+                .PUT(CUSTOMER_ID, EntityMediaTypes.accepted(), handler::updateCustomer)
                 .DELETE(CUSTOMER_ID, handler::deleteCustomerById)
+                .DELETE(CUSTOMER_PATH, handler::deleteCustomersByName)
+                .filter(EntityMediaTypes.varyByRepresentation())
+                .filter(routeMetrics.forGroup("customers"))
+                // metrics filter comes first so that rejected requests are recorded too
+                .filter(concurrencyLimits.forGroup("customers"))
                 .build();
     }
 
@@ -0,0 +1,48 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Server response that forwards to the handler response, filters extend it to
+ * act when the response is written.
+ */
+abstract class DelegatingServerResponse implements ServerResponse {
+    protected final ServerResponse delegate;
+
+    DelegatingServerResponse(ServerResponse delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HttpStatusCode statusCode() {
+        return delegate.statusCode();
+    }
+
+    @Override
+    @Deprecated
+    public int rawStatusCode() {
+        return delegate.statusCode().value();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return delegate.headers();
+    }
+
+    @Override
+    public MultiValueMap<String, ResponseCookie> cookies() {
+        return delegate.cookies();
+    }
+
+    @Override
+    public Mono<Void> writeTo(ServerWebExchange exchange, Context context) {
+        return delegate.writeTo(exchange, context);
+    }
+}
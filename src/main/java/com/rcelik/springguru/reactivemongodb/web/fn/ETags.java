@@ -0,0 +1,119 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import java.util.List;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds etags and evaluates If-None-Match and If-Match headers of server
+ * requests. item etags are the document version, listing etags are the
+ * change counter of the collection. etags of responses that are not json end
+ * with the media type, e.g. "3-cbor", so a cached body is only validated for
+ * the media type it was written as. If-Match only compares the version.
+ */
+final class ETags {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String CHANGE_COUNT_PREFIX = "c";
+    private static final char REPRESENTATION_SEPARATOR = '-';
+
+    private ETags() {
+    }
+
+    /**
+     * documents written before versioning have no version, they are version 0
+     */
+    static String forVersion(Long version) {
+        return quote(String.valueOf(version == null ? 0L : version));
+    }
+
+    /**
+     * etag of the document written as the given media type
+     */
+    static String forVersion(Long version, MediaType mediaType) {
+        return quote(String.valueOf(version == null ? 0L : version) + representation(mediaType));
+    }
+
+    static String forChangeCount(long changeCount, MediaType mediaType) {
+        return quote(CHANGE_COUNT_PREFIX + changeCount + representation(mediaType));
+    }
+
+    // json etags are the bare version, as they were before other media types
+    private static String representation(MediaType mediaType) {
+        return MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)
+                ? ""
+                : REPRESENTATION_SEPARATOR + mediaType.getSubtype();
+    }
+
+    /**
+     * whether If-None-Match has the etag, weak comparison is used as the spec
+     * says for If-None-Match
+     */
+    static boolean isNotModified(ServerRequest request, String etag) {
+        List<String> ifNoneMatch = request.headers().asHttpHeaders().getIfNoneMatch();
+        for (String requestedETag : ifNoneMatch) {
+            if (ANY.equals(requestedETag) || stripWeak(requestedETag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Mono<ServerResponse> notModified(String etag) {
+        return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    /**
+     * version that the client expects the document to have, null when there is
+     * no If-Match or it is *. etags that are not versions can never match, so
+     * they fail the precondition.
+     */
+    static Long expectedVersion(ServerRequest request) {
+        List<String> ifMatch = request.headers().asHttpHeaders().getIfMatch();
+        if (ifMatch.isEmpty() || ifMatch.contains(ANY)) {
+            return null;
+        }
+        if (ifMatch.size() > 1) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "only one etag can be given");
+        }
+
+        // If-Match uses strong comparison, weak etags never match
+        String etag = ifMatch.get(0);
+        if (etag.startsWith(WEAK_PREFIX) || etag.length() < 2 || !etag.startsWith("\"") || !etag.endsWith("\"")) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        String value = etag.substring(1, etag.length() - 1);
+        int separator = value.indexOf(REPRESENTATION_SEPARATOR);
+        if (separator >= 0) {
+            // every representation of a version is the same document
+            value = value.substring(0, separator);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+    }
+
+    /**
+     * a conditional write found the document with another version
+     */
+    static ResponseStatusException preconditionFailed(OptimisticLockingFailureException e) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+}
@@ -0,0 +1,73 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.rcelik.springguru.reactivemongodb.config.WebCodecConfig;
+
+/**
+ * Media types that beers and customers can be read and written as, see
+ * WebCodecConfig. streams are only written as ndjson or server sent events.
+ * The same url is served in several media types and encodings, so responses
+ * vary by Accept and Accept-Encoding.
+ */
+final class EntityMediaTypes {
+    private static final MediaType[] MEDIA_TYPES = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            WebCodecConfig.APPLICATION_SMILE };
+
+    private EntityMediaTypes() {
+    }
+
+    /**
+     * client accepts one of the entity media types
+     */
+    static RequestPredicate accepted() {
+        return RequestPredicates.accept(MEDIA_TYPES);
+    }
+
+    /**
+     * request body is one of the entity media types
+     */
+    static RequestPredicate given() {
+        return RequestPredicates.contentType(MEDIA_TYPES);
+    }
+
+    /**
+     * entity media type the response is written as, the most preferred one of
+     * Accept that is supported. json when nothing is accepted explicitly.
+     */
+    static MediaType negotiate(ServerRequest request) {
+        List<MediaType> accepted = new ArrayList<>(request.headers().accept());
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType acceptedType : accepted) {
+            for (MediaType mediaType : MEDIA_TYPES) {
+                if (acceptedType.isCompatibleWith(mediaType)) {
+                    return mediaType;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * tells caches that responses of the routes differ by Accept and
+     * Accept-Encoding. set on the exchange so it is also sent with 304 and
+     * error responses.
+     */
+    static HandlerFilterFunction<ServerResponse, ServerResponse> varyByRepresentation() {
+        return (request, next) -> {
+            request.exchange().getResponse().getHeaders()
+                    .setVary(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+            return next.handle(request);
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.rcelik.springguru.reactivemongodb.model.KeysetCursor;
+
+/**
+ * Reads keyset pagination parameters (limit, after, sort) from server
+ * requests.
+ */
+final class PageRequests {
+    static final String LIMIT_PARAM = "limit";
+    static final String AFTER_PARAM = "after";
+    static final String SORT_PARAM = "sort";
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 1000;
+
+    private PageRequests() {
+    }
+
+    /**
+     * listing is paginated only if client asks for it, otherwise whole listing is
+     * returned as before
+     */
+    static boolean isPaged(ServerRequest request) {
+        return request.queryParam(LIMIT_PARAM).isPresent() || request.queryParam(AFTER_PARAM).isPresent();
+    }
+
+    static int limit(ServerRequest request) {
+        Optional<String> limitParam = request.queryParam(LIMIT_PARAM);
+        if (limitParam.isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+
+        try {
+            int limit = Integer.parseInt(limitParam.get());
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new ServerWebInputException("limit should be between 1 and " + MAX_LIMIT);
+            }
+            return limit;
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("limit should be a number");
+        }
+    }
+
+    static String sortField(ServerRequest request, Set<String> allowedFields) {
+        String sortField = request.queryParam(SORT_PARAM).orElse("id");
+        if (!allowedFields.contains(sortField)) {
+            throw new ServerWebInputException("sort should be one of " + allowedFields);
+        }
+        return sortField;
+    }
+
+    static KeysetCursor after(ServerRequest request, String sortField) {
+        Optional<String> afterParam = request.queryParam(AFTER_PARAM);
+        if (afterParam.isEmpty()) {
+            return null;
+        }
+
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(afterParam.get());
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException("after is not a valid cursor");
+        }
+
+        // cursor is only meaningful for the sort it was created with
+        if (!cursor.getSortField().equals(sortField)) {
+            throw new ServerWebInputException("after cursor was created for sort " + cursor.getSortField());
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,52 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Reads field projection parameter (fields=a,b,c) from server requests.
+ */
+final class ProjectionRequests {
+    static final String FIELDS_PARAM = "fields";
+
+    /**
+     * body type of projected responses, only the selected fields are written
+     */
+    static final ParameterizedTypeReference<Map<String, Object>> FIELD_MAP_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private ProjectionRequests() {
+    }
+
+    static boolean isProjected(ServerRequest request) {
+        return request.queryParam(FIELDS_PARAM).isPresent();
+    }
+
+    /**
+     * returns requested fields in the given order, unknown fields are rejected
+     */
+    static Set<String> fields(ServerRequest request, Set<String> allowedFields) {
+        Set<String> fields = new LinkedHashSet<>();
+        Arrays.stream(request.queryParam(FIELDS_PARAM).orElse("").split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(fields::add);
+
+        if (fields.isEmpty()) {
+            throw new ServerWebInputException("fields should not be empty");
+        }
+        for (String field : fields) {
+            if (!allowedFields.contains(field)) {
+                throw new ServerWebInputException("Unknown field: " + field + ", fields should be in " + allowedFields);
+            }
+        }
+        return fields;
+    }
+}
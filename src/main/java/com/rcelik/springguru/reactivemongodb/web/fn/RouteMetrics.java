@@ -0,0 +1,123 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records latency, status and written bytes of functional routes.
+ * Latency covers the handler and writing of the response body, so slow
+ * serialization and slow mongo cursors are both visible.
+ *
+ * <ul>
+ * <li>app.route.requests: timer tagged with group, method, route and status</li>
+ * <li>app.route.response.bytes: bytes written to the response body</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class RouteMetrics {
+    static final String REQUESTS_METRIC = "app.route.requests";
+    static final String RESPONSE_BYTES_METRIC = "app.route.response.bytes";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * creates the filter that records metrics of the routes of given group
+     */
+    public HandlerFilterFunction<ServerResponse, ServerResponse> forGroup(String group) {
+        return (request, next) -> {
+            long start = System.nanoTime();
+            return next.handle(request)
+                    .map(response -> (ServerResponse) new MeasuredResponse(response, request, group, start))
+                    .doOnError(error -> record(request, group, errorStatus(error), start, 0));
+        };
+    }
+
+    private void record(ServerRequest request, String group, int status, long start, long bytes) {
+        Tags tags = Tags.of("group", group, "method", request.method().name(), "route", route(request));
+
+        Timer.builder(REQUESTS_METRIC)
+                .tags(tags)
+                .tag("status", String.valueOf(status))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        DistributionSummary.builder(RESPONSE_BYTES_METRIC)
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private static String route(ServerRequest request) {
+        // pattern is used instead of path so that ids do not create new tags
+        return request.attribute(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE)
+                .map(pattern -> ((PathPattern) pattern).getPatternString())
+                .orElse("UNKNOWN");
+    }
+
+    private static int errorStatus(Throwable error) {
+        return error instanceof ResponseStatusException statusException
+                ? statusException.getStatusCode().value()
+                : 500;
+    }
+
+    /**
+     * writes the handler response while counting body bytes, metrics are
+     * recorded when the write finishes
+     */
+    private class MeasuredResponse extends DelegatingServerResponse {
+        private final ServerRequest request;
+        private final String group;
+        private final long start;
+
+        MeasuredResponse(ServerResponse delegate, ServerRequest request, String group, long start) {
+            super(delegate);
+            this.request = request;
+            this.group = group;
+            this.start = start;
+        }
+
+        @Override
+        public Mono<Void> writeTo(ServerWebExchange exchange, Context context) {
+            AtomicLong bytes = new AtomicLong();
+            ServerHttpResponseDecorator countingResponse = new ServerHttpResponseDecorator(exchange.getResponse()) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    return super.writeWith(Flux.from(body)
+                            .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount())));
+                }
+
+                @Override
+                public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                    return super.writeAndFlushWith(Flux.from(body).map(chunk -> Flux.from(chunk)
+                            .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))));
+                }
+            };
+
+            return delegate.writeTo(exchange.mutate().response(countingResponse).build(), context)
+                    .doFinally(signal -> record(request, group, delegate.statusCode().value(), start, bytes.get()));
+        }
+    }
+}
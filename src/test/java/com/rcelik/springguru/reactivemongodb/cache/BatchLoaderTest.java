@@ -0,0 +1,85 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class BatchLoaderTest {
+
+    private List<Set<String>> batches;
+    private BatchLoader<String, String> batchLoader;
+
+    @BeforeEach
+    void setUp() {
+        batches = new CopyOnWriteArrayList<>();
+        // values are the keys themselves, key "missing" is never found
+        batchLoader = new BatchLoader<>("test", true, Duration.ofMillis(50), 10, 4, Duration.ofSeconds(5),
+                keys -> {
+                    batches.add(keys);
+                    return Flux.fromIterable(keys).filter(key -> !key.equals("missing"));
+                }, value -> value, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("lookups within the window should be read with one batch")
+    void testLookupsAreBatched() {
+        List<String> results = Flux.merge(batchLoader.load("a"), batchLoader.load("b"), batchLoader.load("a"))
+                .collectList()
+                .block();
+
+        assertEquals(1, batches.size(), "keys should be read with one batch");
+        assertEquals(Set.of("a", "b"), batches.get(0));
+        assertEquals(3, results.size());
+    }
+
+    @Test
+    @DisplayName("key that is not found should complete empty")
+    void testMissingKey() {
+        assertNull(Mono.from(batchLoader.load("missing")).block());
+    }
+
+    @Test
+    @DisplayName("lookups should all be resolved when more batches are collected than can be read at once")
+    void testSaturatedBatchReads() {
+        // one key per batch and one slow read at a time, batches pile up behind the read
+        BatchLoader<String, String> saturated = new BatchLoader<>("test", true, Duration.ofMillis(1), 1, 1,
+                Duration.ofSeconds(30), keys -> Flux.fromIterable(keys).delaySubscription(Duration.ofMillis(1)),
+                value -> value, new SimpleMeterRegistry());
+
+        List<String> results = Flux.range(0, 500)
+                .flatMap(i -> saturated.load("key-" + i), 500)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(500, results.size());
+
+        // the pipeline still serves lookups afterwards
+        assertEquals("after", saturated.load("after").block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("lookup should fail when its batch read does not finish in time")
+    void testLookupTimesOut() {
+        BatchLoader<String, String> stuck = new BatchLoader<>("test", true, Duration.ofMillis(1), 10, 4,
+                Duration.ofMillis(100), keys -> Flux.never(), value -> value, new SimpleMeterRegistry());
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> stuck.load("a").block(Duration.ofSeconds(5)));
+        assertEquals(TimeoutException.class, Exceptions.unwrap(error).getClass());
+    }
+}
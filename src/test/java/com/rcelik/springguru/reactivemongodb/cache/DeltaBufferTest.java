@@ -0,0 +1,89 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+public class DeltaBufferTest {
+
+    private final List<Map<String, Integer>> batches = new CopyOnWriteArrayList<>();
+
+    private DeltaBuffer<String> deltaBuffer(Duration flushInterval, int maxEntries) {
+        return new DeltaBuffer<>("test", flushInterval, maxEntries, 4, batch -> {
+            batches.add(batch);
+            return Mono.just(Set.of());
+        }, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("deltas of the same key should be summed and written on close")
+    void testDeltasAreSummed() {
+        DeltaBuffer<String> deltaBuffer = deltaBuffer(Duration.ofHours(1), 100);
+        deltaBuffer.add("a", 3);
+        deltaBuffer.add("b", 1);
+        deltaBuffer.add("a", -1);
+        deltaBuffer.add("b", -1);
+
+        deltaBuffer.close();
+
+        assertEquals(List.of(Map.of("a", 2)), batches, "deltas summing to 0 should not be written");
+    }
+
+    @Test
+    @DisplayName("deltas should be written before the interval when max entries keys have one")
+    void testFlushWhenFull() {
+        DeltaBuffer<String> deltaBuffer = deltaBuffer(Duration.ofHours(1), 2);
+        deltaBuffer.add("a", 1);
+        deltaBuffer.add("b", 1);
+
+        Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> batches.size() == 1);
+        assertEquals(Map.of("a", 1, "b", 1), batches.get(0));
+        deltaBuffer.close();
+    }
+
+    @Test
+    @DisplayName("only deltas of the keys the writer reports as failed should be written again")
+    void testFailedKeysAreRetried() {
+        AtomicInteger writes = new AtomicInteger();
+        DeltaBuffer<String> deltaBuffer = new DeltaBuffer<>("test", Duration.ofMillis(20), 100, 4, batch -> {
+            batches.add(batch);
+            return Mono.just(writes.incrementAndGet() == 1 ? Set.of("b") : Set.of());
+        }, new SimpleMeterRegistry());
+        deltaBuffer.add("a", 5);
+        deltaBuffer.add("b", 2);
+
+        Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> batches.size() == 2);
+        deltaBuffer.close();
+
+        assertEquals(Map.of("a", 5, "b", 2), batches.get(0));
+        assertEquals(Map.of("b", 2), batches.get(1), "written deltas should not be written twice");
+    }
+
+    @Test
+    @DisplayName("deltas of a write that failed without telling what is written should be dropped")
+    void testFailedWriteIsNotRetried() {
+        DeltaBuffer<String> deltaBuffer = new DeltaBuffer<>("test", Duration.ofMillis(20), 100, 4, batch -> {
+            batches.add(batch);
+            return batches.size() == 1 ? Mono.error(new IllegalStateException("write failed")) : Mono.just(Set.of());
+        }, new SimpleMeterRegistry());
+        deltaBuffer.add("a", 5);
+        Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> batches.size() == 1);
+
+        deltaBuffer.add("b", 1);
+        deltaBuffer.close();
+
+        assertEquals(List.of(Map.of("a", 5), Map.of("b", 1)), batches);
+    }
+}
@@ -0,0 +1,58 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.rcelik.springguru.reactivemongodb.config.LookupCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+public class ReactiveCacheTest {
+
+    private AtomicInteger loadCount;
+    private ReactiveCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        loadCount = new AtomicInteger();
+        cache = ReactiveCache.create("test", new LookupCacheProperties.Spec(), new SimpleMeterRegistry());
+    }
+
+    private Mono<String> load(String key) {
+        return Mono.fromSupplier(() -> {
+            loadCount.incrementAndGet();
+            return "value of " + key;
+        });
+    }
+
+    @Test
+    @DisplayName("second lookup should be served from cache")
+    void testGetLoadsOnce() {
+        assertEquals("value of a", cache.get("a", this::load).block());
+        assertEquals("value of a", cache.get("a", this::load).block());
+        assertEquals(1, loadCount.get(), "value should be loaded once");
+    }
+
+    @Test
+    @DisplayName("invalidated key should be loaded again")
+    void testInvalidate() {
+        cache.get("a", this::load).block();
+        cache.invalidate("a");
+        cache.get("a", this::load).block();
+        assertEquals(2, loadCount.get(), "value should be loaded again");
+    }
+
+    @Test
+    @DisplayName("empty result should not be cached")
+    void testEmptyResultIsNotCached() {
+        assertNull(cache.get("missing", key -> Mono.<String>empty()).block());
+        assertEquals("value of missing", cache.get("missing", this::load).block());
+    }
+}
@@ -0,0 +1,66 @@
+package com.rcelik.springguru.reactivemongodb.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+public class SingleFlightTest {
+
+    private AtomicInteger loadCount;
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<String, String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        loadCount = new AtomicInteger();
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+    }
+
+    @Test
+    @DisplayName("concurrent reads of the same key should share one load")
+    void testConcurrentReadsAreCoalesced() {
+        Sinks.Many<String> source = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<String> load = Flux.defer(() -> {
+            loadCount.incrementAndGet();
+            return source.asFlux();
+        });
+
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        singleFlight.flux("a", key -> load).subscribe(first::add);
+        source.tryEmitNext("1");
+        // joins after first element, still gets it
+        singleFlight.flux("a", key -> load).subscribe(second::add);
+        source.tryEmitNext("2");
+        source.tryEmitComplete();
+
+        assertEquals(1, loadCount.get(), "value should be loaded once");
+        assertEquals(List.of("1", "2"), first);
+        assertEquals(List.of("1", "2"), second);
+        assertEquals(1.0, meterRegistry.get(SingleFlight.COALESCED_METRIC).counter().count());
+    }
+
+    @Test
+    @DisplayName("read after completion should load again")
+    void testCompletedReadIsNotReused() {
+        singleFlight.flux("a", key -> Flux.defer(() -> Flux.just("value " + loadCount.incrementAndGet())))
+                .blockLast();
+        String second = singleFlight
+                .flux("a", key -> Flux.defer(() -> Flux.just("value " + loadCount.incrementAndGet())))
+                .blockLast();
+
+        assertEquals("value 2", second);
+        assertEquals(0.0, meterRegistry.get(SingleFlight.COALESCED_METRIC).counter().count());
+    }
+}
@@ -0,0 +1,108 @@
+package com.rcelik.springguru.reactivemongodb.codecs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.rcelik.springguru.reactivemongodb.config.DecimalConverters;
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+
+public class BeerCodecTest {
+
+    private final BeerCodec beerCodec = new BeerCodec();
+    private final DocumentCodec documentCodec = new DocumentCodec();
+
+    private MappingMongoConverter converter;
+    private Beer beer;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(DecimalConverters.converters());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        // mongo dates have millisecond precision
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        beer = Beer.builder()
+                .id(ObjectId.get().toHexString())
+                .beerName("Space Dust")
+                .beerStyle("IPA")
+                .upc("12356")
+                .quantitiyOnHand(120)
+                .price(new BigDecimal("12.99"))
+                .createdDate(now)
+                .updatedDate(now)
+                .version(3L)
+                .build();
+    }
+
+    private byte[] encode(Beer beer) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        beerCodec.encode(new BsonBinaryWriter(buffer), beer, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private Document toDocument(byte[] bson) {
+        return documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+    }
+
+    @Test
+    @DisplayName("codec should write the same document as mapping converter")
+    void testEncodeMatchesConverter() {
+        Document converted = new Document();
+        converter.write(beer, converted);
+
+        assertEquals(converted, toDocument(encode(beer)));
+    }
+
+    @Test
+    @DisplayName("codec should read what mapping converter writes")
+    void testDecodeConverterDocument() {
+        Document converted = new Document();
+        converter.write(beer, converted);
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), converted, EncoderContext.builder().build());
+        Beer decoded = beerCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(buffer.toByteArray())),
+                DecoderContext.builder().build());
+
+        assertEquals(beer, decoded);
+    }
+
+    @Test
+    @DisplayName("codec should leave fields missing in a projected document null")
+    void testDecodeProjectedDocument() {
+        Document projected = new Document("_id", new ObjectId(beer.getId())).append("beerName", "Space Dust");
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), projected, EncoderContext.builder().build());
+        Beer decoded = beerCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(buffer.toByteArray())),
+                DecoderContext.builder().build());
+
+        assertEquals(Beer.builder().id(beer.getId()).beerName("Space Dust").build(), decoded);
+    }
+}
@@ -0,0 +1,44 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+
+@SpringBootTest
+public class BeerPriceMigrationTest {
+
+    @Autowired
+    private BeerPriceMigration migration;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Test
+    @DisplayName("string prices should be rewritten as Decimal128")
+    void testMigrate() {
+        ObjectId id = ObjectId.get();
+        // written as older versions did
+        mongoTemplate.insert(new Document("_id", id).append("beerName", "Old Beer").append("price", "10.25"),
+                mongoTemplate.getCollectionName(Beer.class)).block();
+
+        Long migrated = migration.migrate().block();
+
+        Document stored = mongoTemplate.findById(id, Document.class, mongoTemplate.getCollectionName(Beer.class))
+                .block();
+        assertTrue(migrated >= 1, "at least the inserted beer should be migrated");
+        assertEquals(new Decimal128(new BigDecimal("10.25")), stored.get("price"));
+        assertEquals(new BigDecimal("10.25"), mongoTemplate.findById(id.toHexString(), Beer.class).block().getPrice());
+    }
+}
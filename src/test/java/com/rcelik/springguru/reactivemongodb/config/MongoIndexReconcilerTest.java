@@ -0,0 +1,30 @@
+package com.rcelik.springguru.reactivemongodb.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.rcelik.springguru.reactivemongodb.config.MongoIndexReconciler.IndexReport;
+
+@SpringBootTest
+public class MongoIndexReconcilerTest {
+
+    @Autowired
+    private MongoIndexReconciler indexReconciler;
+
+    @Test
+    @DisplayName("declared indexes should not be missing after reconciliation")
+    void testReconcileAll() {
+        // first run creates the missing indexes if startup run is not finished yet
+        indexReconciler.reconcileAll().collectList().block();
+
+        List<IndexReport> reports = indexReconciler.reconcileAll().collectList().block();
+
+        assertTrue(reports.stream().allMatch(report -> report.missing().isEmpty()), "no index should be missing");
+    }
+}
@@ -0,0 +1,66 @@
+package com.rcelik.springguru.reactivemongodb.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.rcelik.springguru.reactivemongodb.config.ConcurrencyLimitProperties;
+
+public class AdaptiveConcurrencyLimitTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static AdaptiveConcurrencyLimit limit(int initialLimit) {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinLimit(1);
+        return new AdaptiveConcurrencyLimit(properties);
+    }
+
+    @Test
+    @DisplayName("operations over the limit should be rejected until a permit is released")
+    void testRejectsOverLimit() {
+        AdaptiveConcurrencyLimit limit = limit(2);
+
+        AdaptiveConcurrencyLimit.Permit first = limit.tryAcquire();
+        assertNotNull(limit.tryAcquire());
+        assertNull(limit.tryAcquire(), "third operation should be rejected");
+
+        first.release();
+        first.release();
+        assertEquals(1, limit.getInFlight(), "releasing twice should free one slot");
+        assertNotNull(limit.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("limit should grow while latency is steady and shrink when it rises")
+    void testFollowsLatency() {
+        AdaptiveConcurrencyLimit limit = limit(100);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, limit.getLimit());
+        }
+        int steadyLimit = limit.getLimit();
+        assertTrue(steadyLimit > 100, "limit should grow, it is " + steadyLimit);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(SLOW, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() < steadyLimit, "limit should shrink, it is " + limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("limit should not grow when operations do not use it")
+    void testDoesNotGrowWhenNotUsed() {
+        AdaptiveConcurrencyLimit limit = limit(100);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, 1);
+        }
+        assertEquals(100, limit.getLimit());
+    }
+}
@@ -0,0 +1,65 @@
+package com.rcelik.springguru.reactivemongodb.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.service.BeerServiceImplTest;
+
+@SpringBootTest
+public class BeerRepositoryCustomImplTest {
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Test
+    @DisplayName("unordered insert should report a duplicate id and insert the other beers")
+    void testInsertUnorderedWithDuplicateId() {
+        String duplicateId = ObjectId.get().toHexString();
+        List<String> ids = List.of(duplicateId, ObjectId.get().toHexString(), duplicateId,
+                ObjectId.get().toHexString());
+        List<Beer> beers = ids.stream().map(BeerRepositoryCustomImplTest::beerWithId).toList();
+
+        Map<Integer, String> errors = beerRepository.insertUnordered(beers).block();
+
+        assertEquals(1, errors.size(), "only the duplicate should fail");
+        assertTrue(Set.of(0, 2).containsAll(errors.keySet()), "error should be reported at a duplicate position");
+        assertEquals(ids.size() - 1, beerRepository.findAllById(Set.copyOf(ids)).count().block(),
+                "other beers should be inserted");
+    }
+
+    @Test
+    @DisplayName("listing by style should return the beers the derived query returns")
+    void testFindListingByStyle() {
+        String beerStyle = "Listing " + UUID.randomUUID();
+        List<Beer> beers = List.of(BeerServiceImplTest.generateTestBeer(), BeerServiceImplTest.generateTestBeer());
+        beers.forEach(beer -> beer.setBeerStyle(beerStyle));
+        beerRepository.saveAll(beers).blockLast();
+
+        List<Beer> listed = beerRepository.findListing(beerStyle).collectList().block();
+
+        assertEquals(2, listed.size());
+        assertEquals(beerRepository.findByBeerStyle(beerStyle).map(Beer::getId).collect(Collectors.toSet()).block(),
+                listed.stream().map(Beer::getId).collect(Collectors.toSet()));
+        assertTrue(listed.stream().allMatch(beer -> beerStyle.equals(beer.getBeerStyle())));
+    }
+
+    private static Beer beerWithId(String id) {
+        Beer beer = BeerServiceImplTest.generateTestBeer();
+        beer.setId(id);
+        beer.setVersion(0L);
+        return beer;
+    }
+}
@@ -3,23 +3,33 @@ package com.rcelik.springguru.reactivemongodb.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.awaitility.Awaitility;
+import org.bson.Document;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 
 import com.rcelik.springguru.reactivemongodb.domain.Beer;
 import com.rcelik.springguru.reactivemongodb.mappers.BeerMapper;
 import com.rcelik.springguru.reactivemongodb.mappers.BeerMapperImpl;
+import com.rcelik.springguru.reactivemongodb.model.BeerChangeEventDTO;
 import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 @SpringBootTest
@@ -31,6 +41,9 @@ public class BeerServiceImplTest {
     @Autowired
     private BeerMapper beerMapper;
 
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
     private BeerDTO beerDTO;
 
     @BeforeEach
@@ -241,6 +254,40 @@ public class BeerServiceImplTest {
         assertNotNull(returnedBeers, "returned beer should not be null");
     }
 
+    @Test
+    @DisplayName("Beer changes of the watched style should be streamed with resume tokens")
+    void testWatchBeerChanges() {
+        // change streams are only available on replica sets
+        Document hello = mongoTemplate.executeCommand("{hello: 1}").block();
+        Assumptions.assumeTrue(hello != null && hello.containsKey("setName"), "mongo is not a replica set");
+
+        String beerStyle = "Watched " + UUID.randomUUID();
+        BeerDTO watchedBeer = genereateTestBeerDTO();
+        watchedBeer.setBeerStyle(beerStyle);
+
+        List<BeerChangeEventDTO> events = new CopyOnWriteArrayList<>();
+        Disposable subscription = beerService.watchBeerChanges(beerStyle, null).subscribe(events::add);
+        try {
+            // the change stream is opened asynchronously, beers are saved until it sees one
+            Awaitility.await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(500))
+                    .until(() -> {
+                        // a beer of another style is saved first, it should be filtered out
+                        beerService.saveBeer(genereateTestBeerDTO()).block();
+                        beerService.saveBeer(watchedBeer).block();
+                        return !events.isEmpty();
+                    });
+        } finally {
+            subscription.dispose();
+        }
+
+        BeerChangeEventDTO event = events.get(0);
+        assertEquals("insert", event.getOperationType());
+        assertNotNull(event.getBeerId());
+        assertNotNull(event.getResumeToken());
+        assertTrue(events.stream().allMatch(changeEvent -> beerStyle.equals(changeEvent.getBeer().getBeerStyle())),
+                "only beers of the watched style should be streamed");
+    }
+
     public static Beer generateTestBeer() {
         return Beer.builder()
                 .beerName("Space Dusty")
@@ -0,0 +1,68 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import com.rcelik.springguru.reactivemongodb.domain.Beer;
+import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.repositories.BeerRepository;
+
+import reactor.core.publisher.Flux;
+
+@SpringBootTest(properties = {
+        "app.streaming.batch-size=3",
+        "app.streaming.limit-rate=4"
+})
+public class BeerStreamingTest {
+
+    @Autowired
+    private BeerService beerService;
+
+    // the repository is spied to see what is asked from mongo
+    @SpyBean
+    private BeerRepository beerRepository;
+
+    @Test
+    @DisplayName("streamed beers should be read with the configured batch size and bounded demand")
+    @SuppressWarnings("unchecked")
+    void testStreamingProperties() {
+        String beerStyle = "Stream " + UUID.randomUUID();
+        List<Beer> beers = IntStream.range(0, 10).mapToObj(i -> {
+            Beer beer = BeerServiceImplTest.generateTestBeer();
+            beer.setBeerStyle(beerStyle);
+            return beer;
+        }).toList();
+        beerRepository.saveAll(beers).blockLast();
+
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            batchSizes.add(invocation.getArgument(1));
+            return ((Flux<Beer>) invocation.callRealMethod()).doOnRequest(requests::add);
+        }).when(beerRepository).streamBeers(eq(beerStyle), anyInt());
+
+        // collectList asks for everything, limitRate has to bound what mongo is asked for
+        List<BeerDTO> streamed = beerService.streamBeers(beerStyle).collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(10, streamed.size());
+        assertEquals(List.of(3), batchSizes, "cursor batch size should come from app.streaming.batch-size");
+        assertEquals(4L, requests.get(0), "first request should be app.streaming.limit-rate");
+        assertTrue(requests.size() > 1, "demand should be replenished as beers are consumed");
+        assertTrue(requests.stream().allMatch(request -> request <= 4), "demand should never exceed the limit rate");
+    }
+}
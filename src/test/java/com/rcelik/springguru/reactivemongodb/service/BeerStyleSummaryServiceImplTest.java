@@ -0,0 +1,127 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleStatsDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleSummaryDTO;
+
+@SpringBootTest
+public class BeerStyleSummaryServiceImplTest {
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private BeerStyleSummaryService styleSummaryService;
+
+    @Test
+    @DisplayName("summaries should follow creates, updates, patches, style changes and deletes")
+    void testSummaryDeltas() {
+        // styles of their own, so other tests do not change the totals
+        String firstStyle = "Summary " + UUID.randomUUID();
+        String secondStyle = "Summary " + UUID.randomUUID();
+
+        BeerDTO first = beerService.saveBeer(beer(firstStyle, "10", 12)).block();
+        BeerDTO second = beerService.saveBeer(beer(firstStyle, "20", 3)).block();
+        assertSummary(firstStyle, 2, 15, "180", "15");
+
+        // all fields are replaced by update
+        first.setQuantitiyOnHand(5);
+        beerService.updateBeer(first.getId(), first).block();
+        assertSummary(firstStyle, 2, 8, "110", "15");
+
+        BeerDTO quantityPatch = new BeerDTO();
+        quantityPatch.setQuantitiyOnHand(7);
+        beerService.patchBeer(second.getId(), quantityPatch).block();
+        assertSummary(firstStyle, 2, 12, "190", "15");
+
+        BeerDTO pricePatch = new BeerDTO();
+        pricePatch.setPrice(new BigDecimal("30"));
+        beerService.patchBeer(second.getId(), pricePatch).block();
+        assertSummary(firstStyle, 2, 12, "260", "20");
+
+        // the beer is moved from one summary to the other
+        BeerDTO stylePatch = new BeerDTO();
+        stylePatch.setBeerStyle(secondStyle);
+        beerService.patchBeer(first.getId(), stylePatch).block();
+        assertSummary(firstStyle, 1, 7, "210", "30");
+        assertSummary(secondStyle, 1, 5, "50", "10");
+
+        beerService.deleteBeer(second.getId()).block();
+        assertNull(summaryOf(firstStyle), "style without beers should not be listed");
+        assertSummary(secondStyle, 1, 5, "50", "10");
+    }
+
+    @Test
+    @DisplayName("rebuilt summaries should match the incremental ones")
+    void testRebuildMatchesIncrementalSummaries() {
+        String beerStyle = "Summary " + UUID.randomUUID();
+        BeerDTO first = beerService.saveBeer(beer(beerStyle, "4.5", 10)).block();
+        beerService.saveBeer(beer(beerStyle, "2", 1)).block();
+        BeerDTO patch = new BeerDTO();
+        patch.setQuantitiyOnHand(4);
+        beerService.patchBeer(first.getId(), patch).block();
+
+        BeerStyleSummaryDTO incremental = summaryOf(beerStyle);
+        assertSummary(beerStyle, 2, 5, "20", "3.25");
+
+        List<BeerStyleSummaryDTO> rebuilt = styleSummaryService.rebuild().collectList().block();
+        BeerStyleSummaryDTO rebuiltSummary = rebuilt.stream()
+                .filter(summary -> beerStyle.equals(summary.getBeerStyle()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(incremental.getCount(), rebuiltSummary.getCount());
+        assertEquals(incremental.getTotalQuantity(), rebuiltSummary.getTotalQuantity());
+        assertEquals(0, incremental.getInventoryValue().compareTo(rebuiltSummary.getInventoryValue()));
+    }
+
+    private static BeerDTO beer(String beerStyle, String price, int quantity) {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+        beerDto.setBeerStyle(beerStyle);
+        beerDto.setPrice(new BigDecimal(price));
+        beerDto.setQuantitiyOnHand(quantity);
+        return beerDto;
+    }
+
+    private BeerStyleSummaryDTO summaryOf(String beerStyle) {
+        return styleSummaryService.getSummaries()
+                .filter(summary -> beerStyle.equals(summary.getBeerStyle()))
+                .next()
+                .block();
+    }
+
+    /**
+     * checks the incremental summary and compares it with the statistics
+     * aggregated from beers, which also have the average price
+     */
+    private void assertSummary(String beerStyle, long count, long totalQuantity, String inventoryValue,
+            String avgPrice) {
+        BeerStyleSummaryDTO summary = summaryOf(beerStyle);
+        assertNotNull(summary, "style should be summarized");
+        assertEquals(count, summary.getCount(), "count");
+        assertEquals(totalQuantity, summary.getTotalQuantity(), "total quantity");
+        assertEquals(0, new BigDecimal(inventoryValue).compareTo(summary.getInventoryValue()),
+                "inventory value " + summary.getInventoryValue());
+
+        BeerStyleStatsDTO stats = beerService.getStyleStats(beerStyle).next().block();
+        assertNotNull(stats, "style should have beers");
+        assertEquals(count, stats.getCount(), "aggregated count");
+        assertEquals(totalQuantity, stats.getTotalQuantity(), "aggregated total quantity");
+        assertEquals(0, new BigDecimal(inventoryValue).compareTo(stats.getInventoryValue()),
+                "aggregated inventory value " + stats.getInventoryValue());
+        assertEquals(0, new BigDecimal(avgPrice).compareTo(stats.getAvgPrice()),
+                "average price " + stats.getAvgPrice());
+    }
+}
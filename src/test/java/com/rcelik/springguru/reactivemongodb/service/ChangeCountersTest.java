@@ -0,0 +1,51 @@
+package com.rcelik.springguru.reactivemongodb.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.rcelik.springguru.reactivemongodb.domain.ChangeCounter;
+
+import reactor.core.publisher.Mono;
+
+public class ChangeCountersTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger increments = new AtomicInteger();
+
+    /**
+     * counter whose first failures increments fail
+     */
+    private ChangeCounters failingFirst(int failures) {
+        return new ChangeCounters(name -> Mono.defer(() -> {
+            if (attempts.incrementAndGet() <= failures) {
+                return Mono.error(new IllegalStateException("increment failed"));
+            }
+            increments.incrementAndGet();
+            return Mono.empty();
+        }));
+    }
+
+    @Test
+    @DisplayName("failed increment should be retried before the caller continues")
+    void testIncrementIsRetried() {
+        failingFirst(2).changed(ChangeCounter.BEERS).block(Duration.ofSeconds(5));
+
+        assertEquals(1, increments.get(), "counter should be incremented once");
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    @DisplayName("increment failing for longer should not fail the caller and be written later")
+    void testIncrementIsRetriedInBackground() {
+        failingFirst(5).changed(ChangeCounter.BEERS).block(Duration.ofSeconds(5));
+
+        assertEquals(0, increments.get(), "caller should continue before the counter is incremented");
+        Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> increments.get() == 1);
+    }
+}
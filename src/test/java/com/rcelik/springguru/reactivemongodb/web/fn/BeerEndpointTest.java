@@ -1,18 +1,45 @@
 package com.rcelik.springguru.reactivemongodb.web.fn;
 
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import com.rcelik.springguru.reactivemongodb.config.MongoIndexReconciler;
+import com.rcelik.springguru.reactivemongodb.config.WebCodecConfig;
 import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerSearchHitDTO;
+import com.rcelik.springguru.reactivemongodb.model.BeerStyleStatsDTO;
+import com.rcelik.springguru.reactivemongodb.model.InventoryAdjustmentDTO;
+import com.rcelik.springguru.reactivemongodb.model.PageDTO;
 import com.rcelik.springguru.reactivemongodb.service.BeerServiceImplTest;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import reactor.core.publisher.Mono;
 
 @SpringBootTest // used to initialize Spring Context and run that tests on it
@@ -21,6 +48,31 @@ public class BeerEndpointTest {
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MongoIndexReconciler indexReconciler;
+
+    private static final ParameterizedTypeReference<PageDTO<BeerDTO>> BEER_PAGE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    /**
+     * creates the beer and returns its id
+     */
+    private String createBeer(BeerDTO beerDto) {
+        String location = webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(beerDto)
+                        .exchange()
+                        .expectStatus().isCreated()
+                        .returnResult(Void.class)
+                        .getResponseHeaders().getLocation().toString();
+        return location.substring(location.lastIndexOf("/") + 1);
+    }
+
     @Test
     @DisplayName("All beers should be returned")
     void testListBeers() {
@@ -31,6 +83,383 @@ public class BeerEndpointTest {
                 .expectBody().jsonPath("$.size()", 3);
     }
 
+    @Test
+    @DisplayName("Route metrics should be recorded")
+    void testRouteMetrics() {
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH)
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody().consumeWith(result -> {
+                });
+
+        // metrics are recorded when writing of the response finishes
+        Awaitility.await().until(() -> meterRegistry.find(RouteMetrics.REQUESTS_METRIC)
+                .tag("group", "beers")
+                .tag("route", BeerRouterConfig.BEER_PATH)
+                .timer() != null);
+    }
+
+    @Test
+    @DisplayName("Beers should be returned page by page")
+    void testListBeersPage() {
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH + "?limit=2")
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.content.length()").value(lessThanOrEqualTo(2));
+    }
+
+    @Test
+    @DisplayName("Following next cursors should return every beer once, beers without name first")
+    void testWalkBeerPages() {
+        String beerStyle = "Keyset " + UUID.randomUUID();
+        List<String> names = Arrays.asList(null, "Alpha", null, "Beta", "Alpha", null, "Gamma");
+        Set<String> createdIds = new HashSet<>();
+        for (String name : names) {
+            BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+            beerDto.setBeerName(name);
+            beerDto.setBeerStyle(beerStyle);
+            createdIds.add(createBeer(beerDto));
+        }
+
+        List<BeerDTO> walked = new ArrayList<>();
+        String after = null;
+        do {
+            String cursor = after;
+            PageDTO<BeerDTO> page = webTestClient.get()
+                            .uri(uriBuilder -> uriBuilder.path(BeerRouterConfig.BEER_PATH)
+                                            .queryParam("beerStyle", beerStyle)
+                                            .queryParam("sort", "beerName")
+                                            .queryParam("limit", 2)
+                                            .queryParamIfPresent("after", Optional.ofNullable(cursor))
+                                            .build())
+                            .accept(MediaType.APPLICATION_JSON)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody(BEER_PAGE_TYPE)
+                            .returnResult().getResponseBody();
+            walked.addAll(page.getContent());
+            after = page.getNextCursor();
+        } while (after != null);
+
+        List<String> walkedIds = walked.stream().map(BeerDTO::getId).toList();
+        assertEquals(names.size(), walkedIds.size(), "no beer should be returned twice");
+        assertEquals(createdIds, new HashSet<>(walkedIds), "every beer should be returned");
+        assertEquals(Arrays.asList(null, null, null, "Alpha", "Alpha", "Beta", "Gamma"),
+                walked.stream().map(BeerDTO::getBeerName).toList());
+    }
+
+    @Test
+    @DisplayName("Invalid page cursor should be rejected")
+    void testListBeersPageWithInvalidCursor() {
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH + "?after=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Only requested fields of beers should be returned")
+    void testListBeersWithFields() {
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH + "?fields=id,beerName")
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].beerName").exists()
+                .jsonPath("$[0].price").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Unknown fields should be rejected")
+    void testListBeersWithUnknownField() {
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH + "?fields=id,color")
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Beers should be streamed as newline delimited json")
+    void testStreamBeersAsNdjson() {
+        String beerStyle = "Ndjson " + UUID.randomUUID();
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("10"), 1));
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("20"), 2));
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("30"), 3));
+
+        String body = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BeerRouterConfig.BEER_PATH)
+                        .queryParam("beerStyle", beerStyle)
+                        .build())
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        // one json document per line, not a json array
+        List<String> lines = body.lines().filter(line -> !line.isBlank()).toList();
+        assertEquals(3, lines.size());
+        assertTrue(lines.stream().allMatch(line -> line.startsWith("{") && line.contains(beerStyle)));
+    }
+
+    @Test
+    @DisplayName("Beers should be streamed as server sent events")
+    void testStreamBeersAsEvents() {
+        String beerStyle = "Events " + UUID.randomUUID();
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("10"), 1));
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("20"), 2));
+
+        List<BeerDTO> beers = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BeerRouterConfig.BEER_PATH)
+                        .queryParam("beerStyle", beerStyle)
+                        .build())
+                .accept(MediaType.TEXT_EVENT_STREAM).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(BeerDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(2, beers.size(), "each beer should be an event of its own");
+        assertTrue(beers.stream().allMatch(beer -> beerStyle.equals(beer.getBeerStyle())));
+    }
+
+    @Test
+    @DisplayName("Beers should be listed as smile when asked")
+    void testListBeersAsSmile() {
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH)
+                .accept(WebCodecConfig.APPLICATION_SMILE).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(WebCodecConfig.APPLICATION_SMILE);
+    }
+
+    @Test
+    @DisplayName("Beer should be returned as cbor when asked")
+    void testGetBeerByIdAsCbor() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Mono.just(beerDto), BeerDTO.class)
+                        .exchange().expectHeader().value(HttpHeaders.LOCATION, locationHeaderValue -> {
+                            String beerId = locationHeaderValue.substring(locationHeaderValue.lastIndexOf("/") + 1);
+                            webTestClient.get()
+                                            .uri(BeerRouterConfig.BEER_ID, beerId)
+                                            .accept(MediaType.APPLICATION_CBOR)
+                                            .exchange()
+                                            .expectStatus().isOk()
+                                            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                                            .expectBody(BeerDTO.class)
+                                            .value(BeerDTO::getBeerName, is(beerDto.getBeerName()));
+                        });
+    }
+
+    @Test
+    @DisplayName("Beers should be listed as cbor when asked")
+    void testListBeersAsCbor() {
+        String beerStyle = "Cbor " + UUID.randomUUID();
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("10"), 1));
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("20"), 2));
+
+        // cbor is decoded as one value, the listing is a single array
+        List<BeerDTO> beers = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BeerRouterConfig.BEER_PATH)
+                        .queryParam("beerStyle", beerStyle)
+                        .build())
+                .accept(MediaType.APPLICATION_CBOR).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                .expectBody(new ParameterizedTypeReference<List<BeerDTO>>() {
+                })
+                .returnResult().getResponseBody();
+
+        assertEquals(2, beers.size());
+        assertTrue(beers.stream().allMatch(beer -> beerStyle.equals(beer.getBeerStyle())));
+
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH)
+                .accept(MediaType.APPLICATION_CBOR).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR);
+    }
+
+    @Test
+    @DisplayName("Inventory statistics should be returned per beer style")
+    void testGetBeerStyleStats() {
+        // beers of a style of their own, so other tests do not change the statistics
+        String beerStyle = "Stats " + UUID.randomUUID();
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("10"), 12));
+        createBeer(beerOfStyle(beerStyle, new BigDecimal("20"), 3));
+
+        List<BeerStyleStatsDTO> stats = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BeerRouterConfig.BEER_STATS_PATH)
+                        .queryParam("beerStyle", beerStyle)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BeerStyleStatsDTO.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(1, stats.size());
+        BeerStyleStatsDTO styleStats = stats.get(0);
+        assertEquals(beerStyle, styleStats.getBeerStyle());
+        assertEquals(2, styleStats.getCount());
+        assertEquals(15, styleStats.getTotalQuantity());
+        assertEquals(0, new BigDecimal("10").compareTo(styleStats.getMinPrice()));
+        assertEquals(0, new BigDecimal("20").compareTo(styleStats.getMaxPrice()));
+        assertEquals(0, new BigDecimal("15").compareTo(styleStats.getAvgPrice()));
+        assertEquals(0, new BigDecimal("180").compareTo(styleStats.getInventoryValue()));
+    }
+
+    private static BeerDTO beerOfStyle(String beerStyle, BigDecimal price, int quantity) {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+        beerDto.setBeerStyle(beerStyle);
+        beerDto.setPrice(price);
+        beerDto.setQuantitiyOnHand(quantity);
+        return beerDto;
+    }
+
+    @Test
+    @DisplayName("Style summary should count created beer")
+    void testBeerStyleSummary() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+        beerDto.setBeerStyle("Summary " + System.nanoTime());
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Mono.just(beerDto), BeerDTO.class)
+                        .exchange()
+                        .expectStatus().isCreated();
+
+        webTestClient.get().uri(BeerRouterConfig.BEER_SUMMARY_PATH)
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[?(@.beerStyle == '" + beerDto.getBeerStyle() + "')].count").value(hasItem(1));
+    }
+
+    @Test
+    @DisplayName("Deleting a missing beer should return not found")
+    void testDeleteMissingBeer() {
+        webTestClient.delete().uri(BeerRouterConfig.BEER_ID, "missing-beer-id")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Beers of a style should be deleted with one request")
+    void testDeleteBeersByStyle() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+        beerDto.setBeerStyle("Purge " + System.nanoTime());
+        beerDto.setBeerName("Purged " + System.nanoTime());
+        String beerId = createBeer(beerDto);
+
+        // cached before the delete
+        webTestClient.get().uri(BeerRouterConfig.BEER_ID, beerId)
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk();
+
+        webTestClient.delete().uri(BeerRouterConfig.BEER_PATH + "?beerStyle={beerStyle}", beerDto.getBeerStyle())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.deletedCount").isEqualTo(1);
+
+        webTestClient.get().uri(BeerRouterConfig.BEER_ID, beerId)
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri(BeerRouterConfig.BEER_AUTOCOMPLETE_PATH + "?prefix={prefix}", beerDto.getBeerName())
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deleting beers without style should be rejected")
+    void testDeleteBeersWithoutStyle() {
+        webTestClient.delete().uri(BeerRouterConfig.BEER_PATH)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Created beer name should be autocompleted")
+    void testAutocompleteBeerNames() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+        beerDto.setBeerName("Autocomplete " + System.nanoTime());
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Mono.just(beerDto), BeerDTO.class)
+                        .exchange()
+                        .expectStatus().isCreated();
+
+        webTestClient.get().uri(BeerRouterConfig.BEER_AUTOCOMPLETE_PATH + "?prefix={prefix}",
+                        beerDto.getBeerName().substring(0, 15).toLowerCase())
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$").value(hasItem(beerDto.getBeerName()));
+    }
+
+    @Test
+    @DisplayName("Search should return best matches first, at most limit of them")
+    void testSearchBeers() {
+        // text index is created in background at startup, it may not be there yet
+        indexReconciler.reconcileAll().collectList().block();
+
+        // a word no other beer has, name matches weigh more than style matches
+        String word = "search" + UUID.randomUUID().toString().replace("-", "");
+        BeerDTO nameMatch = BeerServiceImplTest.genereateTestBeerDTO();
+        nameMatch.setBeerName(word + " Ale");
+        String nameMatchId = createBeer(nameMatch);
+        for (int i = 0; i < 2; i++) {
+            BeerDTO styleMatch = BeerServiceImplTest.genereateTestBeerDTO();
+            styleMatch.setBeerStyle(word);
+            createBeer(styleMatch);
+        }
+
+        List<BeerSearchHitDTO> hits = webTestClient.get()
+                .uri(BeerRouterConfig.BEER_SEARCH_PATH + "?q={q}&limit=2", word)
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BeerSearchHitDTO.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(2, hits.size(), "limit should be honored");
+        assertEquals(nameMatchId, hits.get(0).getBeer().getId(), "name match should come first");
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore(), "hits should be sorted by score");
+    }
+
+    @Test
+    @DisplayName("Search without text should be rejected")
+    void testSearchBeersWithoutText() {
+        webTestClient.get().uri(BeerRouterConfig.BEER_SEARCH_PATH)
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Beers should be looked up by ids in request order")
+    void testListBeersByIds() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Mono.just(beerDto), BeerDTO.class)
+                        .exchange().expectHeader().value(HttpHeaders.LOCATION, locationHeaderValue -> {
+                            String beerId = locationHeaderValue.substring(locationHeaderValue.lastIndexOf("/") + 1);
+                            webTestClient.get()
+                                            .uri(BeerRouterConfig.BEER_PATH + "?ids=missing-beer-id," + beerId)
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .exchange()
+                                            .expectStatus().isOk()
+                                            .expectBody()
+                                            .jsonPath("$[0].found").isEqualTo(false)
+                                            .jsonPath("$[1].id").isEqualTo(beerId)
+                                            .jsonPath("$[1].beer.id").isEqualTo(beerId);
+                        });
+    }
+
     @Test
     @DisplayName("Should create new beer")
     void testCreateBeer() {
@@ -65,4 +494,192 @@ public class BeerEndpointTest {
                         });
     }
 
+    @Test
+    @DisplayName("Unchanged beer should not be returned again")
+    void testGetBeerByIdNotModified() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Mono.just(beerDto), BeerDTO.class)
+                        .exchange().expectHeader().value(HttpHeaders.LOCATION, locationHeaderValue -> {
+                            String beerId = locationHeaderValue.substring(locationHeaderValue.lastIndexOf("/") + 1);
+                            String etag = webTestClient.get()
+                                            .uri(BeerRouterConfig.BEER_ID, beerId)
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .exchange()
+                                            .expectStatus().isOk()
+                                            .expectHeader().exists(HttpHeaders.ETAG)
+                                            .returnResult(BeerDTO.class)
+                                            .getResponseHeaders().getETag();
+
+                            webTestClient.get()
+                                            .uri(BeerRouterConfig.BEER_ID, beerId)
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .ifNoneMatch(etag)
+                                            .exchange()
+                                            .expectStatus().isNotModified()
+                                            .expectBody().isEmpty();
+                        });
+    }
+
+    @Test
+    @DisplayName("Each media type of a beer should have its own etag")
+    void testETagsDifferByMediaType() {
+        String beerId = createBeer(BeerServiceImplTest.genereateTestBeerDTO());
+
+        String jsonETag = webTestClient.get()
+                .uri(BeerRouterConfig.BEER_ID, beerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, "Accept, Accept-Encoding")
+                .expectBody().returnResult()
+                .getResponseHeaders().getETag();
+        String cborETag = webTestClient.get()
+                .uri(BeerRouterConfig.BEER_ID, beerId)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, "Accept, Accept-Encoding")
+                .expectBody().returnResult()
+                .getResponseHeaders().getETag();
+
+        assertNotEquals(jsonETag, cborETag);
+
+        // a json body can not validate a cbor request
+        webTestClient.get()
+                .uri(BeerRouterConfig.BEER_ID, beerId)
+                .accept(MediaType.APPLICATION_CBOR)
+                .ifNoneMatch(jsonETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR);
+
+        // writes compare only the version, whatever media type the etag is of
+        webTestClient.patch()
+                .uri(BeerRouterConfig.BEER_ID, beerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifMatch(cborETag)
+                .bodyValue(BeerDTO.builder().quantitiyOnHand(1).build())
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    @DisplayName("Unchanged beer listing should not be returned again")
+    void testListBeersNotModified() {
+        // a small page keeps the two requests close, tests do not write beers in between
+        String etag = webTestClient.get().uri(BeerRouterConfig.BEER_PATH + "?limit=1")
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody().returnResult()
+                .getResponseHeaders().getETag();
+
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH + "?limit=1")
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @DisplayName("Update with a stale etag should be rejected")
+    void testUpdateBeerWithStaleETag() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Mono.just(beerDto), BeerDTO.class)
+                        .exchange().expectHeader().value(HttpHeaders.LOCATION, locationHeaderValue -> {
+                            String beerId = locationHeaderValue.substring(locationHeaderValue.lastIndexOf("/") + 1);
+                            webTestClient.put()
+                                            .uri(BeerRouterConfig.BEER_ID, beerId)
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .ifMatch("\"0\"")
+                                            .bodyValue(beerDto)
+                                            .exchange()
+                                            .expectStatus().isNoContent()
+                                            .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+
+                            // the beer is at version 1 now
+                            webTestClient.put()
+                                            .uri(BeerRouterConfig.BEER_ID, beerId)
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .ifMatch("\"0\"")
+                                            .bodyValue(beerDto)
+                                            .exchange()
+                                            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+                        });
+    }
+
+    @Test
+    @DisplayName("Inventory adjustment should be added to the quantity on hand")
+    void testAdjustInventory() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Mono.just(beerDto), BeerDTO.class)
+                        .exchange().expectHeader().value(HttpHeaders.LOCATION, locationHeaderValue -> {
+                            String beerId = locationHeaderValue.substring(locationHeaderValue.lastIndexOf("/") + 1);
+                            webTestClient.post()
+                                            .uri(BeerRouterConfig.BEER_INVENTORY_ADJUST_PATH, beerId)
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .bodyValue(new InventoryAdjustmentDTO(-3))
+                                            .exchange()
+                                            .expectStatus().isOk()
+                                            .expectBody()
+                                            .jsonPath("$.applied").isEqualTo(true)
+                                            .jsonPath("$.quantityOnHand").isEqualTo(beerDto.getQuantitiyOnHand() - 3);
+
+                            webTestClient.get()
+                                            .uri(BeerRouterConfig.BEER_ID, beerId)
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .exchange()
+                                            .expectStatus().isOk()
+                                            .expectBody()
+                                            .jsonPath("$.quantitiyOnHand").isEqualTo(beerDto.getQuantitiyOnHand() - 3);
+                        });
+    }
+
+    @Test
+    @DisplayName("Inventory adjustment of unknown beer should return not found")
+    void testAdjustInventoryNotFound() {
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_INVENTORY_ADJUST_PATH, "missing-beer-id")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new InventoryAdjustmentDTO(1))
+                        .exchange()
+                        .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Should create beers in bulk and report invalid ones")
+    void testCreateBeersInBulk() {
+        BeerDTO validBeer = BeerServiceImplTest.genereateTestBeerDTO();
+        BeerDTO invalidBeer = BeerServiceImplTest.genereateTestBeerDTO();
+        invalidBeer.setBeerName("");
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_BULK_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .bodyValue(List.of(validBeer, invalidBeer))
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody()
+                        .jsonPath("$[0].id").exists()
+                        .jsonPath("$[1].index").isEqualTo(1)
+                        .jsonPath("$[1].error").exists();
+    }
+
 }
@@ -0,0 +1,45 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.rcelik.springguru.reactivemongodb.config.ConcurrencyLimitProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+public class ConcurrencyLimitsTest {
+
+    @Test
+    @DisplayName("limited route should reject requests over the limit whatever they accept")
+    void testStreamAcceptDoesNotBypassLimit() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        HandlerFilterFunction<ServerResponse, ServerResponse> limit = new ConcurrencyLimits(properties,
+                new SimpleMeterRegistry()).forGroup("test");
+
+        // holds the only slot, its handler never answers
+        Disposable running = limit.filter(MockServerRequest.builder().build(), request -> Mono.never())
+                .subscribe();
+        try {
+            ServerResponse response = limit.filter(MockServerRequest.builder()
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE)
+                    .build(), request -> ServerResponse.ok().build())
+                    .block();
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.statusCode());
+        } finally {
+            running.dispose();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.rcelik.springguru.reactivemongodb.model.CustomerDTO;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+public class CustomerEndpointTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    @DisplayName("Deleting a missing customer should return not found")
+    void testDeleteMissingCustomer() {
+        webTestClient.delete().uri(CustomerRouteConfig.CUSTOMER_ID, "missing-customer-id")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Customers with a name should be deleted with one request")
+    void testDeleteCustomersByName() {
+        // names are at most 20 characters
+        String name = "Purge " + UUID.randomUUID().toString().substring(0, 8);
+        createCustomer(name);
+        createCustomer(name);
+
+        webTestClient.delete().uri(CustomerRouteConfig.CUSTOMER_PATH + "?name={name}", name)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.deletedCount").isEqualTo(2);
+
+        webTestClient.delete().uri(CustomerRouteConfig.CUSTOMER_PATH + "?name={name}", name)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.deletedCount").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deleting customers without name should be rejected")
+    void testDeleteCustomersWithoutName() {
+        webTestClient.delete().uri(CustomerRouteConfig.CUSTOMER_PATH)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private void createCustomer(String name) {
+        webTestClient.post()
+                .uri(CustomerRouteConfig.CUSTOMER_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(CustomerDTO.builder().name(name).build())
+                .exchange()
+                .expectStatus().isCreated();
+    }
+}
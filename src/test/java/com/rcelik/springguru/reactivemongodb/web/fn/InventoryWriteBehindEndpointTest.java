@@ -0,0 +1,86 @@
+package com.rcelik.springguru.reactivemongodb.web.fn;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Duration;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.rcelik.springguru.reactivemongodb.model.BeerDTO;
+import com.rcelik.springguru.reactivemongodb.model.InventoryAdjustmentDTO;
+import com.rcelik.springguru.reactivemongodb.service.BeerServiceImplTest;
+
+@SpringBootTest(properties = {
+        "app.inventory.write-behind.enabled=true",
+        "app.inventory.write-behind.flush-interval=200ms"
+})
+@AutoConfigureWebTestClient
+public class InventoryWriteBehindEndpointTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private String createBeer(BeerDTO beerDto) {
+        String location = webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(beerDto)
+                        .exchange()
+                        .expectStatus().isCreated()
+                        .returnResult(Void.class)
+                        .getResponseHeaders().getLocation().toString();
+        return location.substring(location.lastIndexOf("/") + 1);
+    }
+
+    private String listingETag() {
+        return webTestClient.get()
+                        .uri(BeerRouterConfig.BEER_PATH + "?limit=1")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .returnResult(Void.class)
+                        .getResponseHeaders().getETag();
+    }
+
+    private WebTestClient.BodyContentSpec getBeer(String beerId) {
+        return webTestClient.get()
+                        .uri(BeerRouterConfig.BEER_ID, beerId)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody();
+    }
+
+    @Test
+    @DisplayName("Buffered inventory adjustment should be accepted and written with the next flush")
+    void testAdjustInventoryWriteBehind() {
+        BeerDTO beerDto = BeerServiceImplTest.genereateTestBeerDTO();
+        int quantity = beerDto.getQuantitiyOnHand();
+        String beerId = createBeer(beerDto);
+
+        // cached before the adjustment, the flush has to invalidate it
+        getBeer(beerId).jsonPath("$.quantitiyOnHand").isEqualTo(quantity);
+        String listingETag = listingETag();
+
+        webTestClient.post()
+                        .uri(BeerRouterConfig.BEER_INVENTORY_ADJUST_PATH, beerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new InventoryAdjustmentDTO(-3))
+                        .exchange()
+                        .expectStatus().isAccepted()
+                        .expectBody()
+                        .jsonPath("$.applied").isEqualTo(false)
+                        .jsonPath("$.delta").isEqualTo(-3);
+
+        Awaitility.await().atMost(Duration.ofSeconds(5)).untilAsserted(
+                        () -> getBeer(beerId).jsonPath("$.quantitiyOnHand").isEqualTo(quantity - 3));
+        Awaitility.await().atMost(Duration.ofSeconds(5)).untilAsserted(
+                        () -> assertNotEquals(listingETag, listingETag(), "listing etag should change after the flush"));
+    }
+}